@@ -1,4 +1,8 @@
+import org.spongepowered.gradle.vanilla.MinecraftExtension
 import org.spongepowered.gradle.vanilla.repository.MinecraftPlatform
+import java.security.MessageDigest
+import java.util.HexFormat
+import java.util.concurrent.ConcurrentHashMap
 
 plugins {
     id("java-library")
@@ -8,27 +12,157 @@ plugins {
 group = "dev.booky"
 version = "1.0.0"
 
+fun Project.configureGeneration(mcVersion: String, outDir: Directory) {
+    repositories {
+        maven("https://repo.papermc.io/repository/maven-public/")
+    }
+
+    extensions.configure<JavaPluginExtension> {
+        toolchain {
+            languageVersion = JavaLanguageVersion.of(25)
+            vendor = JvmVendorSpec.ADOPTIUM
+        }
+    }
+
+    extensions.configure<MinecraftExtension> {
+        version(mcVersion)
+        platform(MinecraftPlatform.SERVER)
+
+        runs {
+            server()
+            server("generate") {
+                mainClass("dev.booky.generation.GenerationMain")
+                accessWideners(the<SourceSetContainer>().named("main").map { it.resources.single { file -> file.name == "generators.accesswidener" } })
+                args(outDir.toString())
+                // additional jvm arguments, e.g. -PgenerateJvmArgs="-XX:StartFlightRecording=filename=generation.jfr"
+                (rootProject.findProperty("generateJvmArgs") as String?)?.let { generateJvmArgs ->
+                    jvmArgs(*generateJvmArgs.split(' ').filter(String::isNotBlank).toTypedArray())
+                }
+                // additional generation options, e.g. -PgenerateArgs="--threads=4"
+                (rootProject.findProperty("generateArgs") as String?)?.let { generateArgs ->
+                    args(*generateArgs.split(' ').filter(String::isNotBlank).toTypedArray())
+                }
+            }
+        }
+    }
+
+    // ahead-of-time class loading and linking cache of the generate run (jdk 25), keyed by minecraft
+    // version and classpath jars; opt-in until verified: -PgenerateAot=train records a new cache during
+    // the run, -PgenerateAot=use starts from a recorded one; a cache which doesn't match the classpath
+    // is ignored by the jvm itself
+    val aotMode = rootProject.findProperty("generateAot") as String?
+    if (aotMode != null && aotMode != "train" && aotMode != "use") {
+        throw GradleException("Unknown AOT mode $aotMode, expected train or use")
+    }
+    // one directory per version, so recording a cache only replaces caches of the same version
+    val aotDir = rootProject.layout.buildDirectory.dir("aot/$mcVersion")
+    val mainOutput = the<SourceSetContainer>().named("main").map { it.output }
+    val mainJar = tasks.named<Jar>("jar").flatMap { it.archiveFile }
+    tasks.matching { it.name == "generate" }.configureEach {
+        val exec = this as JavaExec
+        if (aotMode == null) {
+            return@configureEach
+        }
+        dependsOn(mainJar)
+        doFirst {
+            // aot caches only support class paths made of jars, so the
+            // generation code is run from the project jar instead of its class directories
+            exec.classpath = files(mainJar) + exec.classpath.minus(mainOutput.get())
+            val nonJars = exec.classpath.files.filter { !it.isFile || !it.name.endsWith(".jar") }
+            if (nonJars.isNotEmpty()) {
+                logger.warn("Class path of {} contains non-jar entries {}, AOT cache won't be used", exec.path, nonJars)
+                return@doFirst
+            }
+
+            // the jvm validates jars by size and modification time as well, hashing their contents would
+            // eat into the startup time saved; rebuilding the project jar requires recording a new cache
+            val digest = MessageDigest.getInstance("SHA-256")
+            exec.classpath.files.forEach { jar ->
+                digest.update("${jar.absolutePath}:${jar.length()}:${jar.lastModified()}\n".toByteArray())
+            }
+            val cacheFile = aotDir.get().file("${HexFormat.of().formatHex(digest.digest()).take(16)}.aot").asFile
+            if (aotMode == "train") {
+                // caches of older jars of this version are useless now
+                cacheFile.parentFile.mkdirs()
+                cacheFile.parentFile.listFiles { file -> file.name.endsWith(".aot") }?.forEach { it.delete() }
+                exec.jvmArgs("-XX:AOTCacheOutput=${cacheFile.path}")
+                logger.lifecycle("Recording AOT cache for {} at {}", mcVersion, cacheFile)
+            } else if (cacheFile.isFile) {
+                exec.jvmArgs("-XX:AOTCache=${cacheFile.path}")
+                logger.lifecycle("Using AOT cache for {} at {}", mcVersion, cacheFile)
+            } else {
+                logger.lifecycle("No AOT cache for {} found, record one using -PgenerateAot=train", mcVersion)
+            }
+        }
+    }
+}
+
+configureGeneration(project.ext["mcVersion"] as String, layout.projectDirectory.dir("generated"))
+
+// jmh benchmarks of generators and output loading, see README
+val jmh: SourceSet = sourceSets.create("jmh") {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
 repositories {
-    maven("https://repo.papermc.io/repository/maven-public/")
+    mavenCentral()
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
-java {
-    toolchain {
-        languageVersion = JavaLanguageVersion.of(25)
-        vendor = JvmVendorSpec.ADOPTIUM
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs jmh benchmarks, additional jmh arguments can be passed using -PjmhArgs"
+    classpath = jmh.runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+
+    val resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.file(resultsFile)
+    args("-rf", "json", "-rff", resultsFile.get().asFile.path)
+    (findProperty("jmhArgs") as String?)?.let { jmhArgs ->
+        args(*jmhArgs.split(' ').filter(String::isNotBlank).toTypedArray())
     }
+    doFirst { resultsFile.get().asFile.parentFile.mkdirs() }
 }
 
-minecraft {
-    version(project.ext["mcVersion"] as String)
-    platform(MinecraftPlatform.SERVER)
+// batch generation, every version listed in -PmcVersions gets its own
+// project (see settings.gradle.kts) and is generated in its own jvm
+val batchResults = ConcurrentHashMap<String, String>()
+val batchProjects = findProject(":batch")?.subprojects.orEmpty()
+batchProjects.forEach { batchProject ->
+    batchProject.apply(plugin = "java-library")
+    batchProject.apply(plugin = "org.spongepowered.gradle.vanilla")
+    batchProject.the<SourceSetContainer>().named("main") {
+        java.setSrcDirs(listOf(rootProject.file("src/main/java")))
+        resources.setSrcDirs(listOf(rootProject.file("src/main/resources")))
+    }
 
-    runs {
-        server()
-        server("generate") {
-            mainClass("dev.booky.generation.GenerationMain")
-            accessWideners(sourceSets.main.map { it.resources.single { file -> file.name == "generators.accesswidener" } })
-            args(project.layout.projectDirectory.dir("generated").toString())
+    val mcVersion = batchProject.name
+    batchProject.configureGeneration(mcVersion, layout.projectDirectory.dir("generated/$mcVersion"))
+    batchProject.tasks.matching { it.name == "generate" }.configureEach {
+        var start = 0L
+        doFirst { start = System.nanoTime() }
+        doLast { batchResults[mcVersion] = "finished in ${(System.nanoTime() - start) / 1_000_000L}ms" }
+        finalizedBy(":generateBatchSummary")
+    }
+}
+
+val generateBatchSummary = tasks.register("generateBatchSummary") {
+    doLast {
+        logger.lifecycle("Generated {} versions:", batchProjects.size)
+        batchProjects.forEach { batchProject ->
+            logger.lifecycle(" {}: {}", batchProject.name, batchResults[batchProject.name] ?: "failed")
         }
     }
 }
+
+tasks.register("generateBatch") {
+    group = "minecraft"
+    description = "Generates data for every version in -PmcVersions, see README"
+    dependsOn(batchProjects.map { "${it.path}:generate" })
+    finalizedBy(generateBatchSummary)
+}
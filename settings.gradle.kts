@@ -10,3 +10,12 @@ pluginManagement {
 plugins {
     id("org.gradle.toolchains.foojay-resolver-convention") version "1.0.0"
 }
+
+// batch generation of multiple versions at once, e.g. -PmcVersions=1.21.10,1.21.11
+providers.gradleProperty("mcVersions").orNull
+    ?.split(',')?.map(String::trim)?.filter(String::isNotEmpty)
+    ?.forEach { mcVersion ->
+        include(":batch:$mcVersion")
+        project(":batch").projectDir = file("build/batch").also { it.mkdirs() }
+        project(":batch:$mcVersion").projectDir = file("build/batch/$mcVersion").also { it.mkdirs() }
+    }
@@ -0,0 +1,64 @@
+package dev.booky.generation.benchmark;
+
+import dev.booky.generation.GenerationMain;
+import dev.booky.generation.GenerationOptions;
+import dev.booky.generation.generators.IGenerator;
+import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.OutputSink;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.Bootstrap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+
+// shared setup of all benchmarks, only done once per forked jvm
+public final class BenchmarkBootstrap {
+
+    // enables all optional outputs
+    public static final GenerationOptions OPTIONS = new GenerationOptions(
+            GenerationOptions.DEFAULT.threads(), false, false, true, true, null, OutputSink.DEFAULT, null, Set.of());
+
+    private static Path outputDir;
+
+    private BenchmarkBootstrap() {
+    }
+
+    public static synchronized void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        if (GenerationUtil.VANILLA_REGISTRY_ACCESS == null) {
+            // only built-in registries are available without starting a server
+            GenerationUtil.VANILLA_REGISTRY_ACCESS = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+        }
+    }
+
+    public static IGenerator createGenerator(String genName) {
+        return GenerationMain.createGenerators(OPTIONS).stream()
+                .filter(generator -> generator.getName().equals(genName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown generator " + genName));
+    }
+
+    // runs every generator once, so outputs can be loaded or used as input
+    public static synchronized Path generateOutputs() throws IOException {
+        if (outputDir != null) {
+            return outputDir;
+        }
+        bootstrap();
+        Path dir = Files.createTempDirectory("generation-benchmark");
+        IGenerator remapGenerator = createGenerator("IdRemapGenerator");
+        remapGenerator.generate(dir, remapGenerator.getName());
+        // use the current snapshot as previous snapshot, so diffing generators have work to do
+        Files.copy(dir.resolve("IdRemapGenerator/snapshot.json"),
+                dir.resolve("IdRemapGenerator/input.json"), StandardCopyOption.REPLACE_EXISTING);
+        for (IGenerator generator : GenerationMain.createGenerators(OPTIONS)) {
+            generator.generate(dir, generator.getName());
+        }
+        return outputDir = dir;
+    }
+}
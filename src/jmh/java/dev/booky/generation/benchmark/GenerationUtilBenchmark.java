@@ -0,0 +1,50 @@
+package dev.booky.generation.benchmark;
+
+import dev.booky.generation.util.GenerationUtil;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationUtilBenchmark {
+
+    private List<Identifier> itemKeys;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        this.itemKeys = BuiltInRegistries.ITEM.keySet().stream().toList();
+    }
+
+    @Benchmark
+    public void asFieldName(Blackhole blackhole) {
+        for (Identifier itemKey : this.itemKeys) {
+            blackhole.consume(GenerationUtil.asFieldName(itemKey));
+        }
+    }
+
+    @Benchmark
+    public void toString(Blackhole blackhole) {
+        for (Identifier itemKey : this.itemKeys) {
+            blackhole.consume(GenerationUtil.toString(itemKey));
+        }
+    }
+}
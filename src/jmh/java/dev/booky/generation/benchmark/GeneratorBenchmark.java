@@ -0,0 +1,55 @@
+package dev.booky.generation.benchmark;
+
+import dev.booky.generation.generators.IGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({
+            "RegistryGenerator",
+            "BlockMappingsGenerator",
+            "BlockStateIdsGenerator",
+            "TagsGenerator",
+            "ItemTypesGenerator",
+            "StateTypesGenerator",
+            "ItemDataGenerator",
+            "IdRemapGenerator",
+            "BlockShapesGenerator",
+            "BlockStateLayoutGenerator",
+    })
+    public String generator;
+
+    private IGenerator instance;
+    private Path outDir;
+
+    @Setup
+    public void setup() throws IOException {
+        this.outDir = BenchmarkBootstrap.generateOutputs();
+        this.instance = BenchmarkBootstrap.createGenerator(this.generator);
+    }
+
+    @Benchmark
+    public void generate() throws IOException {
+        this.instance.generate(this.outDir, this.instance.getName());
+    }
+}
@@ -0,0 +1,97 @@
+package dev.booky.generation.benchmark;
+
+import com.google.gson.JsonParser;
+import dev.booky.generation.format.BlockMappingsReader;
+import dev.booky.generation.format.BlockShapesReader;
+import dev.booky.generation.format.BlockStateIdsReader;
+import dev.booky.generation.format.BlockStateLayoutReader;
+import dev.booky.generation.format.IdRemapReader;
+import dev.booky.generation.format.ItemComponentsReader;
+import dev.booky.generation.format.RegistryBundleReader;
+import dev.booky.generation.format.TagMembershipReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// measures how long consumers take to load the generated outputs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputLoadBenchmark {
+
+    // binary outputs with their reference reader, json outputs are parsed with gson
+    private static final Map<String, Loader> BINARY_LOADERS = Map.of(
+            "BlockMappingsGenerator.bin", BlockMappingsReader::read,
+            "BlockShapesGenerator.bin", BlockShapesReader::read,
+            "BlockStateIdsGenerator.bin", BlockStateIdsReader::read,
+            "BlockStateLayoutGenerator.bin", BlockStateLayoutReader::read,
+            "IdRemapGenerator/remap.bin", IdRemapReader::read,
+            "ItemDataGenerator.bin", ItemComponentsReader::read,
+            "RegistryGenerator/bundle.bin", RegistryBundleReader::read,
+            "TagsGenerator/membership.bin", TagMembershipReader::read
+    );
+
+    @Param({
+            "BlockMappingsGenerator.json",
+            "BlockMappingsGenerator.bin",
+            "BlockMappingsGenerator.dedup.json",
+            "BlockShapesGenerator.json",
+            "BlockShapesGenerator.bin",
+            "BlockStateIdsGenerator.bin",
+            "BlockStateLayoutGenerator.bin",
+            "IdRemapGenerator/remap.bin",
+            "ItemDataGenerator.json",
+            "ItemDataGenerator.pooled.json",
+            "ItemDataGenerator.bin",
+            "ItemDataGenerator.profiles.json",
+            "RegistryGenerator/item.json",
+            "RegistryGenerator/bundle.bin",
+            "TagsGenerator/membership.bin",
+    })
+    public String output;
+
+    private byte[] bytes;
+    private Loader loader;
+
+    @Setup
+    public void setup() throws IOException {
+        this.bytes = Files.readAllBytes(BenchmarkBootstrap.generateOutputs().resolve(this.output));
+        this.loader = this.output.endsWith(".json")
+                ? stream -> JsonParser.parseReader(new InputStreamReader(stream, StandardCharsets.UTF_8))
+                : BINARY_LOADERS.get(this.output);
+        if (this.loader == null) {
+            throw new IllegalStateException("No loader for output " + this.output);
+        }
+    }
+
+    @Benchmark
+    public Object load() throws IOException {
+        return this.loader.load(new ByteArrayInputStream(this.bytes));
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+
+        Object load(InputStream stream) throws IOException;
+    }
+}
@@ -0,0 +1,49 @@
+package dev.booky.generation.generators;
+
+import dev.booky.generation.benchmark.BenchmarkBootstrap;
+import net.minecraft.core.component.TypedDataComponent;
+import net.minecraft.world.item.Items;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// in the generators package, as encoding is package-private
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemDataEncodeBenchmark {
+
+    private List<TypedDataComponent<?>> components;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        // a tool has most of the commonly used components
+        this.components = Items.DIAMOND_PICKAXE.components().stream().toList();
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (TypedDataComponent<?> component : this.components) {
+            blackhole.consume(encode(component));
+        }
+    }
+
+    private static <T> byte[] encode(TypedDataComponent<T> component) {
+        return ItemDataGenerator.encode(component.type(), component.value());
+    }
+}
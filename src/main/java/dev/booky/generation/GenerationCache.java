@@ -0,0 +1,207 @@
+package dev.booky.generation;
+
+import com.google.common.base.Suppliers;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import dev.booky.generation.generators.IGenerator;
+import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.OutputSink;
+import net.minecraft.SharedConstants;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// content-addressed cache of generator runs, a generator is skipped if the minecraft version,
+// the generation code and its input files didn't change and all previously written outputs are still present
+public final class GenerationCache {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String MANIFEST_NAME = "generation-cache.json";
+
+    // generators depend on lots of shared code (formats, utilities, helpers), so every class of the
+    // generation code is hashed and any change invalidates everything; the code can't change while running
+    private static final Supplier<HashCode> CODE_HASH = Suppliers.memoize(() -> {
+        try {
+            return hashGenerationCode();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    });
+
+    private final Path outDir;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private GenerationCache(Path outDir) {
+        this.outDir = outDir;
+    }
+
+    public static GenerationCache load(Path outDir) {
+        GenerationCache cache = new GenerationCache(outDir);
+        Path manifestPath = outDir.resolve(MANIFEST_NAME);
+        if (!Files.isRegularFile(manifestPath)) {
+            return cache;
+        }
+        try {
+            JsonObject manifest = GenerationUtil.loadJsonElement(manifestPath, JsonObject.class);
+            for (Map.Entry<String, JsonElement> entry : manifest.entrySet()) {
+                JsonObject entryObj = entry.getValue().getAsJsonObject();
+                Map<String, String> outputs = new TreeMap<>();
+                entryObj.getAsJsonObject("outputs").entrySet().forEach(output ->
+                        outputs.put(output.getKey(), output.getValue().getAsString()));
+                cache.entries.put(entry.getKey(), new Entry(entryObj.get("fingerprint").getAsString(), outputs));
+            }
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Ignoring unreadable generation cache manifest at {}", manifestPath, exception);
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    public void save() throws IOException {
+        JsonObject manifest = new JsonObject();
+        for (Map.Entry<String, Entry> entry : new TreeMap<>(this.entries).entrySet()) {
+            JsonObject outputs = new JsonObject();
+            entry.getValue().outputs().forEach(outputs::addProperty);
+            JsonObject entryObj = new JsonObject();
+            entryObj.addProperty("fingerprint", entry.getValue().fingerprint());
+            entryObj.add("outputs", outputs);
+            manifest.add(entry.getKey(), entryObj);
+        }
+        GenerationUtil.saveJsonElement(OutputSink.DEFAULT, manifest, this.outDir.resolve(MANIFEST_NAME));
+    }
+
+    public boolean isUpToDate(IGenerator generator) throws IOException {
+        Entry entry = this.entries.get(generator.getName());
+        if (entry == null || !entry.fingerprint().equals(this.fingerprint(generator))) {
+            return false;
+        }
+        // verify previous outputs haven't been deleted or modified
+        for (Map.Entry<String, String> output : entry.outputs().entrySet()) {
+            Path outputPath = this.outDir.resolve(output.getKey());
+            if (!Files.isRegularFile(outputPath)
+                    || !hashFile(outputPath).toString().equals(output.getValue())) {
+                LOGGER.info(" Output {} of {} is missing or has been modified",
+                        output.getKey(), generator.getName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void update(IGenerator generator) throws IOException {
+        String genName = generator.getName();
+        List<Path> inputs = generator.getInputs(this.outDir, genName);
+
+        Map<String, String> outputs = new TreeMap<>();
+        for (Path declaredOutput : generator.getOutputs(this.outDir, genName)) {
+            // single files get renamed when being compressed, unless written with the default sink
+            Path output = GenerationUtil.getOutputSink().resolve(declaredOutput);
+            if (Files.isDirectory(declaredOutput) || !Files.exists(output)) {
+                output = declaredOutput;
+            }
+            if (!Files.exists(output)) {
+                continue; // nothing has been written there
+            }
+            try (Stream<Path> tree = Files.walk(output)) {
+                for (Path path : (Iterable<Path>) tree.filter(Files::isRegularFile)::iterator) {
+                    if (!inputs.contains(path)) {
+                        String relPath = this.outDir.relativize(path).toString().replace('\\', '/');
+                        outputs.put(relPath, hashFile(path).toString());
+                    }
+                }
+            }
+        }
+        this.entries.put(genName, new Entry(this.fingerprint(generator), outputs));
+    }
+
+    public void invalidate(IGenerator generator) {
+        this.entries.remove(generator.getName());
+    }
+
+    private String fingerprint(IGenerator generator) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, SharedConstants.getCurrentVersion().id());
+
+        try {
+            hasher.putBytes(CODE_HASH.get().asBytes());
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+
+        // declared outputs depend on the options the generator has been configured with
+        putString(hasher, GenerationUtil.getOutputSink().toString());
+        for (Path output : generator.getOutputs(this.outDir, generator.getName())) {
+            putString(hasher, this.outDir.relativize(output).toString());
+        }
+
+        for (Path input : generator.getInputs(this.outDir, generator.getName())) {
+            putString(hasher, this.outDir.relativize(input).toString());
+            hasher.putBoolean(Files.isRegularFile(input));
+            if (Files.isRegularFile(input)) {
+                hasher.putBytes(hashFile(input).asBytes());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putString(Hasher hasher, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        hasher.putInt(bytes.length).putBytes(bytes);
+    }
+
+    private static HashCode hashFile(Path path) throws IOException {
+        return MoreFiles.asByteSource(path).hash(Hashing.sha256());
+    }
+
+    private static HashCode hashGenerationCode() throws IOException {
+        String packagePath = GenerationCache.class.getPackageName().replace('.', '/');
+        try {
+            Path codeSource = Path.of(GenerationCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isDirectory(codeSource)) {
+                return hashClassFiles(codeSource.resolve(packagePath));
+            }
+            try (FileSystem jarFs = FileSystems.newFileSystem(codeSource)) {
+                return hashClassFiles(jarFs.getPath(packagePath));
+            }
+        } catch (URISyntaxException exception) {
+            throw new IOException("Can't locate generation code", exception);
+        }
+    }
+
+    private static HashCode hashClassFiles(Path packageDir) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(packageDir)) {
+            classFiles = files.filter(file -> file.getFileName().toString().endsWith(".class"))
+                    .sorted(Comparator.comparing(file -> packageDir.relativize(file).toString()))
+                    .toList();
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (Path classFile : classFiles) {
+            putString(hasher, packageDir.relativize(classFile).toString().replace('\\', '/'));
+            hasher.putBytes(hashFile(classFile).asBytes());
+        }
+        return hasher.hash();
+    }
+
+    private record Entry(String fingerprint, Map<String, String> outputs) {
+    }
+}
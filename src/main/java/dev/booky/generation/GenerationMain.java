@@ -1,23 +1,31 @@
 package dev.booky.generation;
 // Created by booky10 in PacketEventsUtils (16:56 20.12.23)
 
+import com.google.common.collect.Iterables;
 import com.mojang.logging.LogUtils;
-import dev.booky.generation.generators.BlockMappingsGenerator;
 import dev.booky.generation.generators.IGenerator;
-import dev.booky.generation.generators.ItemDataGenerator;
-import dev.booky.generation.generators.ItemTypesGenerator;
-import dev.booky.generation.generators.RegistryGenerator;
-import dev.booky.generation.generators.StateTypesGenerator;
-import dev.booky.generation.generators.TagsGenerator;
+import dev.booky.generation.util.GenerationMetrics;
+import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.OutputSink;
+import dev.booky.generation.util.SharedArtifact;
 import net.minecraft.SharedConstants;
 import net.minecraft.server.Bootstrap;
 import org.apache.logging.log4j.LogManager;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.Set;
 
 public final class GenerationMain {
 
@@ -29,7 +37,7 @@ public final class GenerationMain {
     public static void main(String[] args) {
         try {
             Path outDir = Path.of(args[0]); // passed by gradle ":generate" task
-            run(outDir);
+            run(outDir, GenerationOptions.parse(Arrays.asList(args).subList(1, args.length)));
         } finally {
             // safely shutdown - sometimes causes issues where log4j just
             // deletes a few of the last log messages
@@ -37,7 +45,35 @@ public final class GenerationMain {
         }
     }
 
+    // generators are registered in META-INF/services and named after their class; only
+    // selected generators are loaded, instantiated and configured
+    public static List<IGenerator> createGenerators(GenerationOptions options) {
+        Map<String, ServiceLoader.Provider<IGenerator>> providers = new LinkedHashMap<>();
+        ServiceLoader.load(IGenerator.class, GenerationMain.class.getClassLoader()).stream()
+                .forEach(provider -> providers.put(provider.type().getSimpleName(), provider));
+        for (String name : Iterables.concat(Objects.requireNonNullElse(options.include(), Set.of()), options.exclude())) {
+            if (!providers.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown generator " + name + ", expected one of " + providers.keySet());
+            }
+        }
+
+        List<IGenerator> generators = new ArrayList<>();
+        for (Map.Entry<String, ServiceLoader.Provider<IGenerator>> provider : providers.entrySet()) {
+            String name = provider.getKey();
+            if ((options.include() == null || options.include().contains(name)) && !options.exclude().contains(name)) {
+                IGenerator generator = provider.getValue().get();
+                generator.configure(options);
+                generators.add(generator);
+            }
+        }
+        return generators;
+    }
+
     public static void run(Path outDir) {
+        run(outDir, GenerationOptions.DEFAULT);
+    }
+
+    public static void run(Path outDir, GenerationOptions options) {
         try {
             Files.createDirectories(outDir);
         } catch (IOException exception) {
@@ -45,32 +81,110 @@ public final class GenerationMain {
         }
 
         LOGGER.info("Initializing minecraft constants...");
-        long start = System.currentTimeMillis();
-        SharedConstants.tryDetectVersion();
-        Bootstrap.bootStrap();
+        GenerationMetrics bootstrapMetrics = measurePhase("bootstrap", () -> {
+            SharedConstants.tryDetectVersion();
+            Bootstrap.bootStrap();
+        });
         LOGGER.info("Took {}ms to initialize minecraft constants",
-                System.currentTimeMillis() - start);
+                bootstrapMetrics.getWallTime() / 1_000_000L);
+
+        GenerationUtil.setOutputSink(options.outputSink());
 
         LOGGER.info("Initializing generators...");
-        List<IGenerator> generators = List.of(
-                new RegistryGenerator(),
-                new BlockMappingsGenerator(),
-                new TagsGenerator(),
-                new ItemTypesGenerator(),
-                new StateTypesGenerator(),
-                new ItemDataGenerator()
-        );
+        List<IGenerator> generators = createGenerators(options);
+
+        GenerationCache cache = options.incremental() ? GenerationCache.load(outDir) : null;
 
         LOGGER.info("Running {} generators...", generators.size());
-        for (IGenerator generator : generators) {
-            String genName = generator.getClass().getSimpleName();
-            LOGGER.info(" Running {}...", genName);
+        long genStart = System.currentTimeMillis();
+        GeneratorScheduler scheduler = new GeneratorScheduler(options.threads(), cache);
+        Map<String, GeneratorScheduler.Result> results = scheduler.run(outDir, generators);
+        long upToDate = results.values().stream()
+                .filter(result -> result.status() == GeneratorScheduler.Status.UP_TO_DATE)
+                .count();
+        long failed = results.values().stream()
+                .filter(result -> !result.status().isSuccessful())
+                .count();
+        LOGGER.info("Took {}ms to run {} generators ({} up to date, {} failed or skipped)",
+                System.currentTimeMillis() - genStart, results.size(), upToDate, failed);
+        List<GenerationMetrics> genMetrics = results.values().stream()
+                .map(GeneratorScheduler.Result::metrics)
+                .filter(Objects::nonNull)
+                .toList();
+        LOGGER.info("{} of {} written files changed, see generation report for details",
+                genMetrics.stream().mapToInt(GenerationMetrics::getFilesChanged).sum(),
+                genMetrics.stream().mapToInt(GenerationMetrics::getFilesWritten).sum());
+
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException exception) {
+                LOGGER.error("Error while saving generation cache manifest", exception);
+            }
+        }
 
+        List<GenerationMetrics> phases = new ArrayList<>();
+        phases.add(bootstrapMetrics);
+        for (SharedArtifact<?> artifact : List.of(GenerationUtil.REGISTRY_LOOKUP, GenerationUtil.FUEL_VALUES)) {
+            if (artifact.getMetrics() != null) {
+                phases.add(artifact.getMetrics());
+            }
+        }
+
+        try {
+            writeReport(outDir.resolve("generation-report.json"), phases, results);
+        } catch (IOException exception) {
+            LOGGER.error("Error while writing generation report", exception);
+        }
+
+        if (options.watch()) {
             try {
-                generator.generate(outDir, genName);
+                new GenerationWatcher(outDir, generators, scheduler, cache).watch();
             } catch (IOException exception) {
-                LOGGER.error(" Error while running {}", genName, exception);
+                LOGGER.error("Error while watching generator inputs", exception);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
             }
         }
     }
+
+    private static GenerationMetrics measurePhase(String phase, GenerationMetrics.PhaseAction action) {
+        GenerationMetrics metrics = new GenerationMetrics(phase);
+        try {
+            metrics.measure(action);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return metrics;
+    }
+
+    private static void writeReport(
+            Path path, List<GenerationMetrics> phases,
+            Map<String, GeneratorScheduler.Result> results
+    ) throws IOException {
+        // reports and other files only used by generation itself always use the default output sink
+        GenerationUtil.writeJson(OutputSink.DEFAULT, path, writer -> {
+            writer.beginObject();
+            writer.name("version").value(SharedConstants.getCurrentVersion().id());
+            writer.name("phases").beginArray();
+            for (GenerationMetrics phase : phases) {
+                writer.beginObject();
+                phase.writeFields(writer, path.getParent());
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.name("generators").beginArray();
+            for (Map.Entry<String, GeneratorScheduler.Result> entry : results.entrySet()) {
+                writer.beginObject();
+                writer.name("generator").value(entry.getKey());
+                writer.name("status").value(entry.getValue().status().name().toLowerCase(Locale.ROOT));
+                if (entry.getValue().metrics() != null) {
+                    entry.getValue().metrics().writeFields(writer, path.getParent());
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+    }
 }
@@ -0,0 +1,86 @@
+package dev.booky.generation;
+
+import dev.booky.generation.util.OutputSink;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public record GenerationOptions(
+        int threads,
+        boolean incremental,
+        boolean watch,
+        boolean dedupBlockMappings,
+        boolean registryBundle,
+        String previousSnapshot, // null if not specified
+        OutputSink outputSink,
+        Set<String> include, // null if every generator is included
+        Set<String> exclude
+) {
+
+    public static final GenerationOptions DEFAULT = new GenerationOptions(
+            Runtime.getRuntime().availableProcessors(), false, false, false, false, null, OutputSink.DEFAULT, null, Set.of());
+
+    // parses options in the form of "--key=value" or "--flag"
+    public static GenerationOptions parse(List<String> args) {
+        int threads = DEFAULT.threads();
+        boolean incremental = DEFAULT.incremental();
+        boolean watch = DEFAULT.watch();
+        boolean dedupBlockMappings = DEFAULT.dedupBlockMappings();
+        boolean registryBundle = DEFAULT.registryBundle();
+        String previousSnapshot = DEFAULT.previousSnapshot();
+        boolean prettyJson = DEFAULT.outputSink().prettyJson();
+        OutputSink.Compression compression = DEFAULT.outputSink().compression();
+        Set<String> include = DEFAULT.include();
+        Set<String> exclude = DEFAULT.exclude();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Illegal option " + arg + ", expected --key=value");
+            }
+            int separator = arg.indexOf('=');
+            String key = separator == -1 ? arg.substring(2) : arg.substring(2, separator);
+            String value = separator == -1 ? null : arg.substring(separator + 1);
+            switch (key) {
+                // zero or less uses virtual threads instead of a bounded pool
+                case "threads" -> threads = Integer.parseInt(requireValue(key, value));
+                case "incremental" -> incremental = parseFlag(value);
+                case "watch" -> watch = parseFlag(value);
+                case "dedup-block-mappings" -> dedupBlockMappings = parseFlag(value);
+                case "registry-bundle" -> registryBundle = parseFlag(value);
+                // relative to the output directory
+                case "previous-snapshot" -> previousSnapshot = requireValue(key, value);
+                case "json" -> prettyJson = switch (requireValue(key, value)) {
+                    case "pretty" -> true;
+                    case "compact" -> false;
+                    default -> throw new IllegalArgumentException("Illegal json format " + value + ", expected pretty or compact");
+                };
+                case "compression" -> compression = OutputSink.Compression.parse(requireValue(key, value));
+                // comma-separated generator names
+                case "include" -> include = parseNames(requireValue(key, value));
+                case "exclude" -> exclude = parseNames(requireValue(key, value));
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        return new GenerationOptions(threads, incremental, watch, dedupBlockMappings, registryBundle,
+                previousSnapshot, new OutputSink(prettyJson, compression), include, exclude);
+    }
+
+    private static Set<String> parseNames(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static boolean parseFlag(String value) {
+        return value == null || Boolean.parseBoolean(value);
+    }
+
+    private static String requireValue(String key, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Option --" + key + " requires a value");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,123 @@
+package dev.booky.generation;
+
+import com.mojang.logging.LogUtils;
+import dev.booky.generation.generators.IGenerator;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+// keeps the bootstrapped game and all generators in memory and only
+// re-runs generators whose input files changed
+public final class GenerationWatcher {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // editors often save files in multiple steps, wait until no more changes arrive
+    private static final long DEBOUNCE_MILLIS = 100L;
+
+    private final Path outDir;
+    private final List<IGenerator> generators;
+    private final GeneratorScheduler scheduler;
+    private final GenerationCache cache; // null if not running incrementally
+
+    public GenerationWatcher(Path outDir, List<IGenerator> generators, GeneratorScheduler scheduler, GenerationCache cache) {
+        this.outDir = outDir;
+        this.generators = generators;
+        this.scheduler = scheduler;
+        this.cache = cache;
+    }
+
+    // blocks until interrupted
+    public void watch() throws IOException, InterruptedException {
+        Map<Path, Set<String>> inputs = new LinkedHashMap<>();
+        for (IGenerator generator : this.generators) {
+            for (Path input : generator.getInputs(this.outDir, generator.getName())) {
+                inputs.computeIfAbsent(input.toAbsolutePath().normalize(), $ -> new LinkedHashSet<>())
+                        .add(generator.getName());
+            }
+        }
+        if (inputs.isEmpty()) {
+            LOGGER.warn("No generator reads input files, nothing to watch");
+            return;
+        }
+
+        try (WatchService watchService = this.outDir.getFileSystem().newWatchService()) {
+            // inputs don't have to exist yet, so their parent directories are watched instead
+            Set<Path> dirs = new HashSet<>();
+            for (Path input : inputs.keySet()) {
+                Path dir = input.getParent();
+                if (dirs.add(dir)) {
+                    Files.createDirectories(dir);
+                    dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                }
+            }
+            LOGGER.info("Watching {} input files for changes...", inputs.size());
+
+            while (true) {
+                WatchKey key = watchService.take();
+                long changeStart = System.nanoTime();
+                Set<Path> changed = new LinkedHashSet<>();
+                while (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            changed.addAll(inputs.keySet()); // events have been lost
+                            continue;
+                        }
+                        Path path = dir.resolve((Path) event.context());
+                        if (inputs.containsKey(path)) {
+                            changed.add(path);
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    this.rerun(changed, inputs, changeStart);
+                }
+            }
+        }
+    }
+
+    private void rerun(Set<Path> changed, Map<Path, Set<String>> inputs, long changeStart) {
+        Set<String> affected = new LinkedHashSet<>();
+        for (Path path : changed) {
+            affected.addAll(inputs.get(path));
+        }
+
+        LOGGER.info("{} changed, re-running {}...", changed.stream()
+                .map(path -> this.outDir.toAbsolutePath().normalize().relativize(path).toString())
+                .toList(), affected);
+        Map<String, GeneratorScheduler.Result> results = this.scheduler.run(this.outDir, this.generators, affected);
+        if (this.cache != null) {
+            try {
+                this.cache.save();
+            } catch (IOException exception) {
+                LOGGER.error("Error while saving generation cache manifest", exception);
+            }
+        }
+
+        long failed = affected.stream()
+                .filter(name -> !results.get(name).status().isSuccessful())
+                .count();
+        LOGGER.info("Took {}ms from change to re-running {} generators ({} failed or skipped)",
+                (System.nanoTime() - changeStart) / 1_000_000L, affected.size(), failed);
+    }
+}
@@ -0,0 +1,156 @@
+package dev.booky.generation;
+
+import com.mojang.logging.LogUtils;
+import dev.booky.generation.generators.IGenerator;
+import dev.booky.generation.util.GenerationMetrics;
+import dev.booky.generation.util.SharedArtifact;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class GeneratorScheduler {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private final int threads;
+    private final GenerationCache cache; // null if not running incrementally
+
+    public GeneratorScheduler(int threads) {
+        this(threads, null);
+    }
+
+    public GeneratorScheduler(int threads, GenerationCache cache) {
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    private ExecutorService createExecutor() {
+        if (this.threads <= 0) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                    .name("Generator Worker #", 0).factory());
+        }
+        return Executors.newFixedThreadPool(this.threads, Thread.ofPlatform()
+                .name("Generator Worker #", 0).daemon(true).factory());
+    }
+
+    public Map<String, Result> run(Path outDir, List<IGenerator> generators) {
+        return this.run(outDir, generators, null);
+    }
+
+    // only runs selected generators, all others are treated as up to date
+    public Map<String, Result> run(Path outDir, List<IGenerator> generators, Set<String> selected) {
+        Map<String, CompletableFuture<Result>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = this.createExecutor()) {
+            for (IGenerator generator : generators) {
+                if (futures.containsKey(generator.getName())) {
+                    throw new IllegalStateException("Duplicate generator name " + generator.getName());
+                }
+                CompletableFuture<Result> future = selected != null && !selected.contains(generator.getName())
+                        ? CompletableFuture.completedFuture(new Result(Status.UP_TO_DATE, null))
+                        : this.schedule(outDir, generator, executor);
+                futures.put(generator.getName(), future);
+            }
+        } // waits for every generator to finish
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Result>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), entry.getValue().join());
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private CompletableFuture<Result> schedule(Path outDir, IGenerator generator, ExecutorService executor) {
+        // shared artifacts are created on their own threads, generators which
+        // don't need them can already run while they are being created
+        Map<String, CompletableFuture<Boolean>> artifactFutures = new HashMap<>();
+        for (SharedArtifact<?> artifact : generator.getArtifacts()) {
+            artifactFutures.put(artifact.getName(), artifact.load()
+                    .handle(($, throwable) -> throwable == null));
+        }
+
+        return CompletableFuture.allOf(artifactFutures.values().toArray(CompletableFuture[]::new))
+                .thenApplyAsync($ -> {
+                    List<String> failedArtifacts = new ArrayList<>();
+                    artifactFutures.forEach((artifactName, artifactFuture) -> {
+                        if (!artifactFuture.join()) {
+                            failedArtifacts.add(artifactName);
+                        }
+                    });
+                    if (!failedArtifacts.isEmpty()) {
+                        LOGGER.error(" Skipping {}, shared artifacts {} couldn't be created",
+                                generator.getName(), failedArtifacts);
+                        return new Result(Status.SKIPPED, null);
+                    }
+                    return this.runGenerator(outDir, generator);
+                }, executor);
+    }
+
+    private Result runGenerator(Path outDir, IGenerator generator) {
+        String genName = generator.getName();
+        if (this.cache != null) {
+            try {
+                if (this.cache.isUpToDate(generator)) {
+                    LOGGER.info(" Skipping {}, inputs and outputs are up to date", genName);
+                    return new Result(Status.UP_TO_DATE, null);
+                }
+            } catch (IOException exception) {
+                LOGGER.warn(" Error while checking cache of {}, running it again", genName, exception);
+            }
+        }
+
+        LOGGER.info(" Running {}...", genName);
+        GenerationMetrics metrics = new GenerationMetrics(genName);
+        try {
+            metrics.measure(() -> generator.generate(outDir, genName));
+        } catch (Throwable throwable) {
+            LOGGER.error(" Error while running {}", genName, throwable);
+            if (this.cache != null) {
+                this.cache.invalidate(generator);
+            }
+            return new Result(Status.FAILED, metrics);
+        }
+        if (this.cache != null) {
+            try {
+                this.cache.update(generator);
+            } catch (IOException exception) {
+                LOGGER.warn(" Error while updating cache of {}", genName, exception);
+                this.cache.invalidate(generator);
+            }
+        }
+        LOGGER.info(" Finished {} in {}ms", genName, metrics.getWallTime() / 1_000_000L);
+        return new Result(Status.SUCCESS, metrics);
+    }
+
+    public enum Status {
+
+        SUCCESS(true),
+        UP_TO_DATE(true),
+        FAILED(false),
+        SKIPPED(false);
+
+        private final boolean successful;
+
+        Status(boolean successful) {
+            this.successful = successful;
+        }
+
+        public boolean isSuccessful() {
+            return this.successful;
+        }
+    }
+
+    // metrics are null if the generator hasn't been run
+    public record Result(Status status, GenerationMetrics metrics) {
+    }
+}
@@ -0,0 +1,86 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// reference reader for the binary block mappings format, see FORMATS.md
+public final class BlockMappingsReader {
+
+    public static final int MAGIC = 0x5045424D; // "PEBM"
+    public static final int VERSION = 1;
+
+    public static final int KIND_STRING = 0;
+    public static final int KIND_INT = 1;
+    public static final int KIND_BOOLEAN = 2;
+
+    private BlockMappingsReader() {
+    }
+
+    public static BlockMappings read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static BlockMappings read(DataInput in) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+        List<String> strings = StringTable.read(in);
+
+        int propertyCount = FormatIO.readVarInt(in);
+        List<PropertyInfo> properties = new ArrayList<>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+            String name = strings.get(FormatIO.readVarInt(in));
+            int kind = in.readUnsignedByte();
+            String[] values = new String[FormatIO.readVarInt(in)];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = strings.get(FormatIO.readVarInt(in));
+            }
+            properties.add(new PropertyInfo(name, kind, List.of(values)));
+        }
+
+        int blockCount = FormatIO.readVarInt(in);
+        List<BlockInfo> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            String name = strings.get(FormatIO.readVarInt(in));
+            PropertyInfo[] blockProperties = new PropertyInfo[FormatIO.readVarInt(in)];
+            for (int j = 0; j < blockProperties.length; j++) {
+                blockProperties[j] = properties.get(FormatIO.readVarInt(in));
+            }
+            int defaultIndex = FormatIO.readVarInt(in);
+            int stateCount = FormatIO.readVarInt(in);
+            byte[] ordinals = new byte[stateCount * blockProperties.length];
+            for (int j = 0; j < ordinals.length; j++) {
+                ordinals[j] = (byte) FormatIO.readVarInt(in);
+            }
+            blocks.add(new BlockInfo(name, List.of(blockProperties), defaultIndex, stateCount, ordinals));
+        }
+        return new BlockMappings(Collections.unmodifiableList(properties), Collections.unmodifiableList(blocks));
+    }
+
+    public record BlockMappings(List<PropertyInfo> properties, List<BlockInfo> blocks) {
+    }
+
+    public record PropertyInfo(String name, int kind, List<String> values) {
+    }
+
+    public record BlockInfo(
+            String name,
+            List<PropertyInfo> properties,
+            int defaultIndex,
+            int stateCount,
+            byte[] ordinals // stateCount * properties.size(), row-major by state
+    ) {
+
+        public int getOrdinal(int stateIndex, int propertyIndex) {
+            return this.ordinals[stateIndex * this.properties.size() + propertyIndex] & 0xFF;
+        }
+
+        public String getValue(int stateIndex, int propertyIndex) {
+            return this.properties.get(propertyIndex).values().get(this.getOrdinal(stateIndex, propertyIndex));
+        }
+    }
+}
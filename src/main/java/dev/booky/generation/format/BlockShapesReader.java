@@ -0,0 +1,100 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// reference reader for the pooled block state shapes, see FORMATS.md
+public final class BlockShapesReader {
+
+    public static final int MAGIC = 0x50455653; // "PEVS"
+    public static final int VERSION = 1;
+
+    // the outline shape is moved by a random offset based on the block position (e.g. flowers)
+    public static final int FLAG_OFFSET = 1;
+    // the shapes depend on the surroundings or the colliding entity, only the default shapes are included
+    public static final int FLAG_DYNAMIC = 1 << 1;
+    // the collision shape is moved by the offset as well (e.g. bamboo), only set together with FLAG_OFFSET
+    public static final int FLAG_COLLISION_OFFSET = 1 << 2;
+
+    public static final int EMPTY_SHAPE = 0;
+
+    private BlockShapesReader() {
+    }
+
+    public static BlockShapes read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static BlockShapes read(DataInput in) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+
+        int shapeCount = FormatIO.readVarInt(in);
+        int[] shapeStarts = new int[shapeCount + 1];
+        double[] boxes = new double[0];
+        int boxValues = 0;
+        for (int i = 0; i < shapeCount; i++) {
+            shapeStarts[i] = boxValues;
+            int values = FormatIO.readVarInt(in) * 6;
+            if (boxValues + values > boxes.length) {
+                boxes = Arrays.copyOf(boxes, Math.max(boxes.length * 2, boxValues + values));
+            }
+            for (int j = 0; j < values; j++) {
+                boxes[boxValues++] = in.readDouble();
+            }
+        }
+        shapeStarts[shapeCount] = boxValues;
+
+        int stateCount = FormatIO.readVarInt(in);
+        int[] collisionShapes = readVarInts(in, stateCount);
+        int[] outlineShapes = readVarInts(in, stateCount);
+        byte[] flags = new byte[stateCount];
+        in.readFully(flags);
+        return new BlockShapes(Arrays.copyOf(boxes, boxValues), shapeStarts, collisionShapes, outlineShapes, flags);
+    }
+
+    private static int[] readVarInts(DataInput in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = FormatIO.readVarInt(in);
+        }
+        return values;
+    }
+
+    public record BlockShapes(
+            double[] boxes, // minX, minY, minZ, maxX, maxY, maxZ of every box of every shape
+            int[] shapeStarts, // shape index -> index of its first value in boxes, shape count + 1 entries
+            int[] collisionShapes, // global state id -> shape index
+            int[] outlineShapes, // global state id -> shape index
+            byte[] flags // global state id -> flags
+    ) {
+
+        public int getShapeCount() {
+            return this.shapeStarts.length - 1;
+        }
+
+        public int getCollisionShape(int stateId) {
+            return this.collisionShapes[stateId];
+        }
+
+        public int getOutlineShape(int stateId) {
+            return this.outlineShapes[stateId];
+        }
+
+        public int getBoxCount(int shape) {
+            return (this.shapeStarts[shape + 1] - this.shapeStarts[shape]) / 6;
+        }
+
+        // axis 0-2 are the minimum x, y and z coordinates, axis 3-5 the maximum coordinates
+        public double getBoxValue(int shape, int box, int axis) {
+            return this.boxes[this.shapeStarts[shape] + box * 6 + axis];
+        }
+
+        public boolean hasFlag(int stateId, int flag) {
+            return (this.flags[stateId] & flag) != 0;
+        }
+    }
+}
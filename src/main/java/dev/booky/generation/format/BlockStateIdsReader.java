@@ -0,0 +1,67 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+
+// reference reader for the binary block state id tables, see FORMATS.md
+public final class BlockStateIdsReader {
+
+    public static final int MAGIC = 0x50454253; // "PEBS"
+    public static final int VERSION = 1;
+
+    private BlockStateIdsReader() {
+    }
+
+    public static BlockStateIds read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static BlockStateIds read(DataInput in) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+        int stateCount = FormatIO.readVarInt(in);
+        int blockCount = FormatIO.readVarInt(in);
+
+        int[] stateBlocks = readVarInts(in, stateCount);
+        int[] stateOrdinals = readVarInts(in, stateCount);
+        byte[] defaultStates = new byte[(stateCount + 7) >> 3];
+        in.readFully(defaultStates);
+        int[] blockFirstStates = readVarInts(in, blockCount);
+        return new BlockStateIds(stateBlocks, stateOrdinals, BitSet.valueOf(defaultStates), blockFirstStates);
+    }
+
+    private static int[] readVarInts(DataInput in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = FormatIO.readVarInt(in);
+        }
+        return values;
+    }
+
+    public record BlockStateIds(
+            int[] stateBlocks, // global state id -> block registry id
+            int[] stateOrdinals, // global state id -> index in the block's possible states
+            BitSet defaultStates, // global state id -> whether this is the block's default state
+            int[] blockFirstStates // block registry id -> first global state id
+    ) {
+
+        public int getBlockId(int stateId) {
+            return this.stateBlocks[stateId];
+        }
+
+        public int getOrdinal(int stateId) {
+            return this.stateOrdinals[stateId];
+        }
+
+        public boolean isDefault(int stateId) {
+            return this.defaultStates.get(stateId);
+        }
+
+        public int getStateId(int blockId, int ordinal) {
+            return this.blockFirstStates[blockId] + ordinal;
+        }
+    }
+}
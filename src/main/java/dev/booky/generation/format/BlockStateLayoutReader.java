@@ -0,0 +1,126 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// reference reader for the packed block state property layouts, see FORMATS.md
+public final class BlockStateLayoutReader {
+
+    public static final int MAGIC = 0x5045424C; // "PEBL"
+    public static final int VERSION = 1;
+
+    // packed values which don't belong to any state
+    public static final int INVALID_STATE = -1;
+
+    private BlockStateLayoutReader() {
+    }
+
+    public static BlockStateLayouts read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static BlockStateLayouts read(DataInput in) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+        List<String> strings = StringTable.read(in);
+
+        int blockCount = FormatIO.readVarInt(in);
+        List<BlockLayout> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            PropertyLayout[] properties = new PropertyLayout[FormatIO.readVarInt(in)];
+            for (int j = 0; j < properties.length; j++) {
+                String name = strings.get(FormatIO.readVarInt(in));
+                String[] values = new String[FormatIO.readVarInt(in)];
+                for (int k = 0; k < values.length; k++) {
+                    values[k] = strings.get(FormatIO.readVarInt(in));
+                }
+                int offset = in.readUnsignedByte();
+                int width = in.readUnsignedByte();
+                properties[j] = new PropertyLayout(name, List.of(values), offset, width);
+            }
+            int[] packedStates = new int[1 << in.readUnsignedByte()];
+            for (int j = 0; j < packedStates.length; j++) {
+                packedStates[j] = FormatIO.readVarInt(in) - 1; // zero is used for invalid values
+            }
+            blocks.add(new BlockLayout(List.of(properties), packedStates));
+        }
+
+        int stateCount = FormatIO.readVarInt(in);
+        int[] statePacked = new int[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            statePacked[i] = FormatIO.readVarInt(in);
+        }
+        // every state is referenced by exactly one block, no need to store this
+        int[] stateBlocks = new int[stateCount];
+        for (int blockId = 0; blockId < blockCount; blockId++) {
+            for (int stateId : blocks.get(blockId).packedStates()) {
+                if (stateId != INVALID_STATE) {
+                    stateBlocks[stateId] = blockId;
+                }
+            }
+        }
+        return new BlockStateLayouts(Collections.unmodifiableList(blocks), statePacked, stateBlocks);
+    }
+
+    public record BlockStateLayouts(
+            List<BlockLayout> blocks, // by block registry id
+            int[] statePacked, // global state id -> packed property values
+            int[] stateBlocks // global state id -> block registry id
+    ) {
+
+        public BlockLayout getLayout(int blockId) {
+            return this.blocks.get(blockId);
+        }
+
+        public int getBlockId(int stateId) {
+            return this.stateBlocks[stateId];
+        }
+
+        public int getPacked(int stateId) {
+            return this.statePacked[stateId];
+        }
+
+        // value ordinal of the property at the given index in the state's block
+        public int getValue(int stateId, int propertyIndex) {
+            return this.getLayout(this.stateBlocks[stateId]).properties().get(propertyIndex)
+                    .get(this.statePacked[stateId]);
+        }
+
+        // global state id of the state with the given property changed
+        public int withValue(int stateId, int propertyIndex, int ordinal) {
+            BlockLayout layout = this.getLayout(this.stateBlocks[stateId]);
+            return layout.getStateId(layout.properties().get(propertyIndex)
+                    .with(this.statePacked[stateId], ordinal));
+        }
+    }
+
+    public record BlockLayout(
+            List<PropertyLayout> properties, // in state definition order
+            int[] packedStates // packed property values -> global state id
+    ) {
+
+        public int getStateId(int packed) {
+            return this.packedStates[packed];
+        }
+    }
+
+    public record PropertyLayout(String name, List<String> values, int offset, int width) {
+
+        public int getMask() {
+            return ((1 << this.width) - 1) << this.offset;
+        }
+
+        public int get(int packed) {
+            return (packed & this.getMask()) >>> this.offset;
+        }
+
+        public int with(int packed, int ordinal) {
+            return (packed & ~this.getMask()) | (ordinal << this.offset);
+        }
+    }
+}
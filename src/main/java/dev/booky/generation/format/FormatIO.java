@@ -0,0 +1,96 @@
+package dev.booky.generation.format;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// primitives shared by all binary output formats, see FORMATS.md;
+// this only depends on the jdk, so readers can be copied as-is
+public final class FormatIO {
+
+    private FormatIO() {
+    }
+
+    public static void writeHeader(DataOutput out, int magic, int version) throws IOException {
+        out.writeInt(magic);
+        writeVarInt(out, version);
+    }
+
+    public static int readHeader(DataInput in, int magic, int maxVersion) throws IOException {
+        int readMagic = in.readInt();
+        if (readMagic != magic) {
+            throw new IOException("Illegal magic " + Integer.toHexString(readMagic)
+                    + ", expected " + Integer.toHexString(magic));
+        }
+        int version = readVarInt(in);
+        if (version < 1 || version > maxVersion) {
+            throw new IOException("Unsupported format version " + version + ", expected at most " + maxVersion);
+        }
+        return version;
+    }
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too big");
+    }
+
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static void writeString(DataOutput out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // reads from the buffer's current position, e.g. for mapped files
+    public static DataInput asDataInput(ByteBuffer buffer) {
+        return new DataInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int off, int len) {
+                if (!buffer.hasRemaining()) {
+                    return len == 0 ? 0 : -1;
+                }
+                int count = Math.min(len, buffer.remaining());
+                buffer.get(bytes, off, count);
+                return count;
+            }
+        });
+    }
+}
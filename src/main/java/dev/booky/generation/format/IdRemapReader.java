@@ -0,0 +1,65 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// reference reader for the binary cross-version id remap tables, see FORMATS.md
+public final class IdRemapReader {
+
+    public static final int MAGIC = 0x5045524D; // "PERM"
+    public static final int VERSION = 1;
+
+    // marks entries which don't exist in the other version
+    public static final int REMOVED = -1;
+
+    private IdRemapReader() {
+    }
+
+    public static IdRemap read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static IdRemap read(DataInput in) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+        String fromVersion = FormatIO.readString(in);
+        String toVersion = FormatIO.readString(in);
+
+        int registryCount = FormatIO.readVarInt(in);
+        Map<String, RegistryRemap> registries = new LinkedHashMap<>(registryCount);
+        for (int i = 0; i < registryCount; i++) {
+            String name = FormatIO.readString(in);
+            int[] oldToNew = readIds(in);
+            int[] newToOld = readIds(in);
+            registries.put(name, new RegistryRemap(oldToNew, newToOld));
+        }
+        return new IdRemap(fromVersion, toVersion, Collections.unmodifiableMap(registries));
+    }
+
+    private static int[] readIds(DataInput in) throws IOException {
+        int[] ids = new int[FormatIO.readVarInt(in)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = FormatIO.readVarInt(in) - 1; // zero is used for removed entries
+        }
+        return ids;
+    }
+
+    public record IdRemap(String fromVersion, String toVersion, Map<String, RegistryRemap> registries) {
+    }
+
+    public record RegistryRemap(int[] oldToNew, int[] newToOld) {
+
+        public int toNew(int oldId) {
+            return this.oldToNew[oldId];
+        }
+
+        public int toOld(int newId) {
+            return this.newToOld[newId];
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+// reference reader for the binary item components, see FORMATS.md;
+// only the key table is decoded when reading, item records are decoded on access
+public final class ItemComponentsReader {
+
+    public static final int MAGIC = 0x50454943; // "PEIC"
+    public static final int VERSION = 1;
+
+    private ItemComponentsReader() {
+    }
+
+    public static ItemComponents read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static ItemComponents read(DataInput in) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+
+        String[] componentTypes = new String[FormatIO.readVarInt(in)];
+        for (int i = 0; i < componentTypes.length; i++) {
+            componentTypes[i] = FormatIO.readString(in);
+        }
+        List<ComponentRecord> defaults = readComponentRecords(in);
+
+        String[] keys = new String[FormatIO.readVarInt(in)];
+        int[] offsets = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = FormatIO.readString(in);
+            offsets[i] = in.readInt();
+        }
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new ItemComponents(List.of(componentTypes), defaults, keys, offsets, data);
+    }
+
+    private static List<ComponentRecord> readComponentRecords(DataInput in) throws IOException {
+        ComponentRecord[] records = new ComponentRecord[FormatIO.readVarInt(in)];
+        for (int i = 0; i < records.length; i++) {
+            int type = FormatIO.readVarInt(in);
+            byte[] payload = new byte[FormatIO.readVarInt(in)];
+            in.readFully(payload);
+            records[i] = new ComponentRecord(type, payload);
+        }
+        return List.of(records);
+    }
+
+    public record ItemComponents(
+            List<String> componentTypes, // component type names by registry id
+            List<ComponentRecord> defaults,
+            String[] keys, // sorted
+            int[] offsets, // offset of every item's record in data
+            byte[] data
+    ) {
+
+        // returns the components differing from the defaults,
+        // or null if there is no item with this key
+        public List<ComponentRecord> getComponents(String key) {
+            int index = Arrays.binarySearch(this.keys, key);
+            if (index < 0) {
+                return null;
+            }
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                        this.data, this.offsets[index], this.data.length - this.offsets[index]));
+                return readComponentRecords(in);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    // payload contains the exact bytes written by the component type's stream codec
+    public record ComponentRecord(int type, byte[] payload) {
+    }
+}
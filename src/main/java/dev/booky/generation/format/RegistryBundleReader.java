@@ -0,0 +1,84 @@
+package dev.booky.generation.format;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// reference reader for the indexed registry bundle, see FORMATS.md;
+// only the string table and index are decoded when reading, registries are decoded on access
+public final class RegistryBundleReader {
+
+    public static final int MAGIC = 0x50455242; // "PERB"
+    public static final int VERSION = 1;
+
+    private RegistryBundleReader() {
+    }
+
+    public static RegistryBundle read(InputStream stream) throws IOException {
+        return read(ByteBuffer.wrap(stream.readAllBytes()));
+    }
+
+    // maps the file instead of reading it, registries which are never accessed aren't touched
+    public static RegistryBundle map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()));
+        }
+    }
+
+    public static RegistryBundle read(ByteBuffer buffer) throws IOException {
+        DataInput in = FormatIO.asDataInput(buffer.duplicate());
+        FormatIO.readHeader(in, MAGIC, VERSION);
+        List<String> strings = StringTable.read(in);
+
+        int registryCount = FormatIO.readVarInt(in);
+        Map<String, RegistryInfo> registries = new LinkedHashMap<>(registryCount);
+        for (int i = 0; i < registryCount; i++) {
+            String name = toString(strings.get(FormatIO.readVarInt(in)), strings.get(FormatIO.readVarInt(in)));
+            int offset = in.readInt();
+            int length = in.readInt();
+            int entryCount = FormatIO.readVarInt(in);
+            registries.put(name, new RegistryInfo(name, offset, length, entryCount));
+        }
+        return new RegistryBundle(buffer, strings, Collections.unmodifiableMap(registries));
+    }
+
+    // same as in json outputs, the default namespace is omitted
+    private static String toString(String namespace, String path) {
+        return "minecraft".equals(namespace) ? path : namespace + ':' + path;
+    }
+
+    public record RegistryBundle(ByteBuffer buffer, List<String> strings, Map<String, RegistryInfo> registries) {
+
+        // returns the entry names in id order, or null if there is no registry with this name
+        public List<String> getEntries(String registry) {
+            RegistryInfo info = this.registries.get(registry);
+            if (info == null) {
+                return null;
+            }
+            try {
+                DataInput in = FormatIO.asDataInput(this.buffer.slice(info.offset(), info.length()));
+                List<String> entries = new ArrayList<>(info.entryCount());
+                for (int i = 0; i < info.entryCount(); i++) {
+                    entries.add(RegistryBundleReader.toString(
+                            this.strings.get(FormatIO.readVarInt(in)), this.strings.get(FormatIO.readVarInt(in))));
+                }
+                return Collections.unmodifiableList(entries);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    public record RegistryInfo(String name, int offset, int length, int entryCount) {
+    }
+}
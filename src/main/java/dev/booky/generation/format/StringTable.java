@@ -0,0 +1,40 @@
+package dev.booky.generation.format;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// deduplicates strings in binary formats, every string is referenced by its varint index
+public final class StringTable {
+
+    private final Map<String, Integer> indices = new LinkedHashMap<>();
+
+    public int index(String string) {
+        return this.indices.computeIfAbsent(string, $ -> this.indices.size());
+    }
+
+    public int size() {
+        return this.indices.size();
+    }
+
+    public void write(DataOutput out) throws IOException {
+        FormatIO.writeVarInt(out, this.indices.size());
+        for (String string : this.indices.keySet()) {
+            FormatIO.writeString(out, string);
+        }
+    }
+
+    public static List<String> read(DataInput in) throws IOException {
+        int size = FormatIO.readVarInt(in);
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(FormatIO.readString(in));
+        }
+        return Collections.unmodifiableList(strings);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.booky.generation.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// reference reader for the resolved tag membership bitsets, see FORMATS.md
+public final class TagMembershipReader {
+
+    public static final int MAGIC = 0x5045544D; // "PETM"
+    public static final int VERSION = 1;
+
+    private TagMembershipReader() {
+    }
+
+    public static TagMembership read(InputStream stream) throws IOException {
+        return read((DataInput) new DataInputStream(new BufferedInputStream(stream)));
+    }
+
+    public static TagMembership read(DataInput in) throws IOException {
+        return read(in, null);
+    }
+
+    // only decodes the given registries, the sections of all other registries are skipped
+    public static TagMembership read(DataInput in, Set<String> registryFilter) throws IOException {
+        FormatIO.readHeader(in, MAGIC, VERSION);
+
+        int registryCount = FormatIO.readVarInt(in);
+        List<RegistryIndex> index = new ArrayList<>(registryCount);
+        for (int i = 0; i < registryCount; i++) {
+            index.add(new RegistryIndex(FormatIO.readString(in), FormatIO.readVarInt(in),
+                    FormatIO.readVarInt(in), FormatIO.readVarInt(in)));
+        }
+
+        Map<String, RegistryTags> registries = new LinkedHashMap<>(registryCount);
+        for (RegistryIndex registry : index) {
+            if (registryFilter != null && !registryFilter.contains(registry.name())) {
+                in.skipBytes(registry.byteLength());
+                continue;
+            }
+            Map<String, BitSet> tags = new LinkedHashMap<>(registry.tagCount());
+            for (int i = 0; i < registry.tagCount(); i++) {
+                String name = FormatIO.readString(in);
+                tags.put(name, readRuns(in, registry.entryCount()));
+            }
+            registries.put(registry.name(), new RegistryTags(registry.entryCount(), Collections.unmodifiableMap(tags)));
+        }
+        return new TagMembership(Collections.unmodifiableMap(registries));
+    }
+
+    private static BitSet readRuns(DataInput in, int entryCount) throws IOException {
+        BitSet bits = new BitSet(entryCount);
+        int runCount = FormatIO.readVarInt(in);
+        int end = 0;
+        for (int i = 0; i < runCount; i++) {
+            int start = end + FormatIO.readVarInt(in);
+            end = start + FormatIO.readVarInt(in);
+            bits.set(start, end);
+        }
+        return bits;
+    }
+
+    private record RegistryIndex(String name, int entryCount, int tagCount, int byteLength) {
+    }
+
+    public record TagMembership(Map<String, RegistryTags> registries) {
+
+        public RegistryTags getRegistry(String registry) {
+            return this.registries.get(registry);
+        }
+    }
+
+    public record RegistryTags(int entryCount, Map<String, BitSet> tags) {
+
+        public boolean contains(String tag, int id) {
+            BitSet members = this.tags.get(tag);
+            return members != null && members.get(id);
+        }
+    }
+}
@@ -1,52 +1,211 @@
 package dev.booky.generation.generators;
 // Created by booky10 in MinecraftSource (19:02 05.09.23)
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import dev.booky.generation.GenerationOptions;
+import dev.booky.generation.format.BlockMappingsReader;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.format.StringTable;
 import dev.booky.generation.util.GenerationUtil;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BooleanProperty;
+import net.minecraft.world.level.block.state.properties.IntegerProperty;
 import net.minecraft.world.level.block.state.properties.Property;
 import org.apache.commons.lang3.math.NumberUtils;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public final class BlockMappingsGenerator implements IGenerator {
 
+    private boolean dedup;
+
+    @Override
+    public void configure(GenerationOptions options) {
+        this.dedup = options.dedupBlockMappings();
+    }
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        List<Path> outputs = new ArrayList<>();
+        outputs.add(outDir.resolve(genName + ".json"));
+        outputs.add(outDir.resolve(genName + ".bin"));
+        if (this.dedup) {
+            outputs.add(outDir.resolve(genName + ".dedup.json"));
+        }
+        return outputs;
+    }
+
     @Override
     public void generate(Path outDir, String genName) throws IOException {
-        JsonArray array = new JsonArray();
+        GenerationUtil.writeJson(outDir.resolve(genName + ".json"), writer -> {
+            writer.beginArray();
+            for (Block block : BuiltInRegistries.BLOCK) {
+                List<BlockState> states = block.getStateDefinition().getPossibleStates();
+                int defaultIndex = states.indexOf(block.defaultBlockState());
+
+                writer.beginObject();
+                writer.name("type").value(BuiltInRegistries.BLOCK.getKey(block).getPath());
+                writer.name("def").value(defaultIndex);
+                writer.name("entries").beginArray();
+                for (BlockState state : states) {
+                    writer.beginObject();
+                    for (Map.Entry<Property<?>, Comparable<?>> entry : state.getValues().entrySet()) {
+                        writer.name(entry.getKey().getName());
+                        writeValue(writer, ((Property) entry.getKey()).getName(entry.getValue()));
+                    }
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endArray();
+        });
+        GenerationUtil.writeBinary(outDir.resolve(genName + ".bin"), BlockMappingsGenerator::writeBinary);
+        if (this.dedup) {
+            GenerationUtil.writeJson(outDir.resolve(genName + ".dedup.json"), BlockMappingsGenerator::writeDedupJson);
+        }
+    }
+
+    private static void writeValue(JsonWriter writer, String valueStr) throws IOException {
+        if (NumberUtils.isDigits(valueStr)) {
+            writer.value(Integer.parseInt(valueStr));
+        } else if ("true".equals(valueStr)) {
+            writer.value(true);
+        } else if ("false".equals(valueStr)) {
+            writer.value(false);
+        } else {
+            writer.value(valueStr);
+        }
+    }
+
+    // property layouts are shared between blocks and referenced by index; the states
+    // of a block aren't listed, they are the cartesian product of the schema's property
+    // values in schema order (the last property changes fastest), same as in vanilla
+    private static void writeDedupJson(JsonWriter writer) throws IOException {
+        Map<PropertyKey, Integer> propertyIndices = new LinkedHashMap<>();
+        Map<List<Integer>, Integer> schemaIndices = new LinkedHashMap<>();
+        List<Integer> blockSchemas = new ArrayList<>(BuiltInRegistries.BLOCK.size());
+        for (Block block : BuiltInRegistries.BLOCK) {
+            List<Integer> schema = new ArrayList<>();
+            for (Property<?> property : block.getStateDefinition().getProperties()) {
+                schema.add(propertyIndices.computeIfAbsent(PropertyKey.of(property), $ -> propertyIndices.size()));
+            }
+            blockSchemas.add(schemaIndices.computeIfAbsent(List.copyOf(schema), $ -> schemaIndices.size()));
+        }
+
+        writer.beginObject();
+        writer.name("properties").beginArray();
+        for (PropertyKey property : propertyIndices.keySet()) {
+            writer.beginObject();
+            writer.name("name").value(property.name());
+            writer.name("values").beginArray();
+            for (String value : property.values()) {
+                writeValue(writer, value);
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+
+        writer.name("schemas").beginArray();
+        for (List<Integer> schema : schemaIndices.keySet()) {
+            writer.beginArray();
+            for (int propertyIndex : schema) {
+                writer.value(propertyIndex);
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+
+        writer.name("blocks").beginArray();
+        int blockIndex = 0;
         for (Block block : BuiltInRegistries.BLOCK) {
             List<BlockState> states = block.getStateDefinition().getPossibleStates();
-            int defaultIndex = states.indexOf(block.defaultBlockState());
+            writer.beginObject();
+            writer.name("type").value(BuiltInRegistries.BLOCK.getKey(block).getPath());
+            writer.name("schema").value(blockSchemas.get(blockIndex++));
+            writer.name("def").value(states.indexOf(block.defaultBlockState()));
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    // see FORMATS.md for a description of this format
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void writeBinary(DataOutputStream out) throws IOException {
+        StringTable strings = new StringTable();
+
+        // properties with the same name and values are shared between blocks
+        Map<PropertyKey, Integer> propertyIndices = new LinkedHashMap<>();
+        for (Block block : BuiltInRegistries.BLOCK) {
+            for (Property<?> property : block.getStateDefinition().getProperties()) {
+                propertyIndices.putIfAbsent(PropertyKey.of(property), propertyIndices.size());
+            }
+        }
+
+        // intern strings in order of appearance, the string table has to be written first
+        for (Block block : BuiltInRegistries.BLOCK) {
+            strings.index(GenerationUtil.toString(BuiltInRegistries.BLOCK.getKey(block)));
+        }
+        for (PropertyKey property : propertyIndices.keySet()) {
+            strings.index(property.name());
+            property.values().forEach(strings::index);
+        }
+
+        FormatIO.writeHeader(out, BlockMappingsReader.MAGIC, BlockMappingsReader.VERSION);
+        strings.write(out);
 
-            JsonArray entries = new JsonArray();
+        FormatIO.writeVarInt(out, propertyIndices.size());
+        for (PropertyKey property : propertyIndices.keySet()) {
+            FormatIO.writeVarInt(out, strings.index(property.name()));
+            out.writeByte(property.kind());
+            FormatIO.writeVarInt(out, property.values().size());
+            for (String value : property.values()) {
+                FormatIO.writeVarInt(out, strings.index(value));
+            }
+        }
+
+        FormatIO.writeVarInt(out, BuiltInRegistries.BLOCK.size());
+        for (Block block : BuiltInRegistries.BLOCK) {
+            List<Property<?>> properties = List.copyOf(block.getStateDefinition().getProperties());
+            List<BlockState> states = block.getStateDefinition().getPossibleStates();
+
+            FormatIO.writeVarInt(out, strings.index(GenerationUtil.toString(BuiltInRegistries.BLOCK.getKey(block))));
+            FormatIO.writeVarInt(out, properties.size());
+            for (Property<?> property : properties) {
+                FormatIO.writeVarInt(out, propertyIndices.get(PropertyKey.of(property)));
+            }
+            FormatIO.writeVarInt(out, states.indexOf(block.defaultBlockState()));
+            FormatIO.writeVarInt(out, states.size());
             for (BlockState state : states) {
-                JsonObject object = new JsonObject();
-                for (Map.Entry<Property<?>, Comparable<?>> entry : state.getValues().entrySet()) {
-                    String valueStr = ((Property) entry.getKey()).getName(entry.getValue());
-                    JsonPrimitive value = NumberUtils.isDigits(valueStr)
-                            ? new JsonPrimitive(Integer.parseInt(valueStr))
-                            : "true".equals(valueStr) ? new JsonPrimitive(true)
-                            : "false".equals(valueStr) ? new JsonPrimitive(false)
-                            : new JsonPrimitive(valueStr);
-                    object.add(entry.getKey().getName(), value);
+                for (Property property : properties) {
+                    FormatIO.writeVarInt(out, property.getPossibleValues().indexOf(state.getValue(property)));
                 }
-                entries.add(object);
             }
-
-            JsonObject object = new JsonObject();
-            object.addProperty("type", BuiltInRegistries.BLOCK.getKey(block).getPath());
-            object.addProperty("def", defaultIndex);
-            object.add("entries", entries);
-            array.add(object);
         }
+    }
 
-        GenerationUtil.saveJsonElement(array, outDir.resolve(genName + ".json"));
+    private record PropertyKey(String name, int kind, List<String> values) {
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static PropertyKey of(Property<?> property) {
+            int kind = property instanceof IntegerProperty ? BlockMappingsReader.KIND_INT
+                    : property instanceof BooleanProperty ? BlockMappingsReader.KIND_BOOLEAN
+                    : BlockMappingsReader.KIND_STRING;
+            List<String> values = new ArrayList<>();
+            for (Comparable value : property.getPossibleValues()) {
+                values.add(((Property) property).getName(value));
+            }
+            return new PropertyKey(property.getName(), kind, List.copyOf(values));
+        }
     }
 }
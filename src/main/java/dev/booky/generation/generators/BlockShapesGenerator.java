@@ -0,0 +1,151 @@
+package dev.booky.generation.generators;
+
+import dev.booky.generation.format.BlockShapesReader;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.util.GenerationUtil;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.EmptyBlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// collision and outline shapes of every block state, identical shapes are only written once
+public final class BlockShapesGenerator implements IGenerator {
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName + ".json"), outDir.resolve(genName + ".bin"));
+    }
+
+    // moving shapes back leaves floating point residue (e.g. 0.31250000000000006), which would
+    // prevent pooling of identical shapes; the shapes of offset blocks are aligned to a 1/2048 grid
+    private static List<AABB> removeOffset(List<AABB> boxes, Vec3 offset) {
+        List<AABB> moved = new ArrayList<>(boxes.size());
+        for (AABB box : boxes) {
+            moved.add(new AABB(
+                    snap(box.minX - offset.x), snap(box.minY - offset.y), snap(box.minZ - offset.z),
+                    snap(box.maxX - offset.x), snap(box.maxY - offset.y), snap(box.maxZ - offset.z)));
+        }
+        return moved;
+    }
+
+    private static double snap(double coordinate) {
+        return Math.rint(coordinate * 2048d) / 2048d;
+    }
+
+    // not every block applies its offset to the collision shape (e.g. flowers only offset their outline),
+    // so the collision shape is compared against one at a position with a different offset
+    private static boolean isCollisionOffset(BlockState state, List<AABB> collisionBoxes, Vec3 offset) {
+        for (int x = 1; x <= 16; x++) {
+            BlockPos pos = new BlockPos(x, 0, 0);
+            if (!state.getOffset(pos).equals(offset)) {
+                return !state.getCollisionShape(EmptyBlockGetter.INSTANCE, pos).toAabbs().equals(collisionBoxes);
+            }
+        }
+        return false; // same offset everywhere, nothing to compare against
+    }
+
+    @Override
+    public void generate(Path outDir, String genName) throws IOException {
+        int stateCount = Block.BLOCK_STATE_REGISTRY.size();
+        Map<List<AABB>, Integer> shapeIndices = new LinkedHashMap<>();
+        shapeIndices.put(List.of(), BlockShapesReader.EMPTY_SHAPE);
+
+        int[] collisionShapes = new int[stateCount];
+        int[] outlineShapes = new int[stateCount];
+        byte[] flags = new byte[stateCount];
+        for (int stateId = 0; stateId < stateCount; stateId++) {
+            BlockState state = Block.BLOCK_STATE_REGISTRY.byId(stateId);
+            if (state == null) {
+                throw new IllegalStateException("Block state id " + stateId + " isn't mapped");
+            }
+            int stateFlags = 0;
+            List<AABB> collisionBoxes = state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO).toAabbs();
+            List<AABB> outlineBoxes = state.getShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO).toAabbs();
+            if (state.hasOffsetFunction()) {
+                // undo the random offset of the origin, consumers apply it based on the actual position
+                Vec3 offset = state.getOffset(BlockPos.ZERO);
+                outlineBoxes = removeOffset(outlineBoxes, offset);
+                stateFlags |= BlockShapesReader.FLAG_OFFSET;
+                if (isCollisionOffset(state, collisionBoxes, offset)) {
+                    collisionBoxes = removeOffset(collisionBoxes, offset);
+                    stateFlags |= BlockShapesReader.FLAG_COLLISION_OFFSET;
+                }
+            }
+            if (state.cache == null) {
+                // no cached shapes, shapes depend on surroundings or the colliding entity
+                stateFlags |= BlockShapesReader.FLAG_DYNAMIC;
+            }
+
+            collisionShapes[stateId] = shapeIndices.computeIfAbsent(
+                    List.copyOf(collisionBoxes), $ -> shapeIndices.size());
+            outlineShapes[stateId] = shapeIndices.computeIfAbsent(
+                    List.copyOf(outlineBoxes), $ -> shapeIndices.size());
+            flags[stateId] = (byte) stateFlags;
+        }
+
+        GenerationUtil.writeJson(outDir.resolve(genName + ".json"), writer -> {
+            writer.beginObject();
+            writer.name("shapes").beginArray();
+            for (List<AABB> boxes : shapeIndices.keySet()) {
+                writer.beginArray();
+                for (AABB box : boxes) {
+                    writer.beginArray();
+                    writer.value(box.minX).value(box.minY).value(box.minZ);
+                    writer.value(box.maxX).value(box.maxY).value(box.maxZ);
+                    writer.endArray();
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+            writer.name("collision").beginArray();
+            for (int shape : collisionShapes) {
+                writer.value(shape);
+            }
+            writer.endArray();
+            writer.name("outline").beginArray();
+            for (int shape : outlineShapes) {
+                writer.value(shape);
+            }
+            writer.endArray();
+            writer.name("flags").beginArray();
+            for (byte stateFlags : flags) {
+                writer.value(stateFlags);
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+
+        GenerationUtil.writeBinary(outDir.resolve(genName + ".bin"), out -> {
+            FormatIO.writeHeader(out, BlockShapesReader.MAGIC, BlockShapesReader.VERSION);
+            FormatIO.writeVarInt(out, shapeIndices.size());
+            for (List<AABB> boxes : shapeIndices.keySet()) {
+                FormatIO.writeVarInt(out, boxes.size());
+                for (AABB box : boxes) {
+                    out.writeDouble(box.minX);
+                    out.writeDouble(box.minY);
+                    out.writeDouble(box.minZ);
+                    out.writeDouble(box.maxX);
+                    out.writeDouble(box.maxY);
+                    out.writeDouble(box.maxZ);
+                }
+            }
+            FormatIO.writeVarInt(out, stateCount);
+            for (int shape : collisionShapes) {
+                FormatIO.writeVarInt(out, shape);
+            }
+            for (int shape : outlineShapes) {
+                FormatIO.writeVarInt(out, shape);
+            }
+            out.write(flags);
+        });
+    }
+}
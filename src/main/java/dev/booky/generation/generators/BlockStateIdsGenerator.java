@@ -0,0 +1,83 @@
+package dev.booky.generation.generators;
+
+import dev.booky.generation.format.BlockStateIdsReader;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.util.GenerationUtil;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public final class BlockStateIdsGenerator implements IGenerator {
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName + ".bin"));
+    }
+
+    @Override
+    public void generate(Path outDir, String genName) throws IOException {
+        int stateCount = Block.BLOCK_STATE_REGISTRY.size();
+        int blockCount = BuiltInRegistries.BLOCK.size();
+
+        int[] stateBlocks = new int[stateCount];
+        int[] stateOrdinals = new int[stateCount];
+        BitSet defaultStates = new BitSet(stateCount);
+        int[] blockFirstStates = new int[blockCount];
+        Arrays.fill(blockFirstStates, -1);
+        BitSet mappedStates = new BitSet(stateCount);
+
+        for (Block block : BuiltInRegistries.BLOCK) {
+            int blockId = BuiltInRegistries.BLOCK.getId(block);
+            List<BlockState> states = block.getStateDefinition().getPossibleStates();
+            for (int ordinal = 0; ordinal < states.size(); ordinal++) {
+                BlockState state = states.get(ordinal);
+                int stateId = Block.BLOCK_STATE_REGISTRY.getId(state);
+                if (stateId < 0 || stateId >= stateCount) {
+                    throw new IllegalStateException("Block state " + state + " isn't mapped");
+                }
+                stateBlocks[stateId] = blockId;
+                stateOrdinals[stateId] = ordinal;
+                defaultStates.set(stateId, state == block.defaultBlockState());
+                mappedStates.set(stateId);
+            }
+        }
+
+        for (int stateId = 0; stateId < stateCount; stateId++) {
+            if (!mappedStates.get(stateId)) {
+                throw new IllegalStateException("Block state id " + stateId + " isn't mapped");
+            }
+            int blockId = stateBlocks[stateId];
+            if (blockFirstStates[blockId] == -1) {
+                blockFirstStates[blockId] = stateId;
+            }
+            // consumers resolve state ids using first state id + ordinal, this
+            // also makes sure the first state of every block has ordinal zero
+            if (stateId - blockFirstStates[blockId] != stateOrdinals[stateId]) {
+                throw new IllegalStateException("States of block " + BuiltInRegistries.BLOCK.getKey(
+                        BuiltInRegistries.BLOCK.byIdOrThrow(blockId)) + " aren't registered contiguously");
+            }
+        }
+
+        GenerationUtil.writeBinary(outDir.resolve(genName + ".bin"), out -> {
+            FormatIO.writeHeader(out, BlockStateIdsReader.MAGIC, BlockStateIdsReader.VERSION);
+            FormatIO.writeVarInt(out, stateCount);
+            FormatIO.writeVarInt(out, blockCount);
+            for (int blockId : stateBlocks) {
+                FormatIO.writeVarInt(out, blockId);
+            }
+            for (int ordinal : stateOrdinals) {
+                FormatIO.writeVarInt(out, ordinal);
+            }
+            out.write(Arrays.copyOf(defaultStates.toByteArray(), (stateCount + 7) >> 3));
+            for (int firstState : blockFirstStates) {
+                FormatIO.writeVarInt(out, firstState);
+            }
+        });
+    }
+}
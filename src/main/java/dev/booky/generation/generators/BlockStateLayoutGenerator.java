@@ -0,0 +1,110 @@
+package dev.booky.generation.generators;
+
+import dev.booky.generation.format.BlockStateLayoutReader;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.format.StringTable;
+import dev.booky.generation.util.GenerationUtil;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// packs the property values of every block state into a bitfield, so reading or
+// changing a property is a shift and mask, followed by a single array lookup
+public final class BlockStateLayoutGenerator implements IGenerator {
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName + ".bin"));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Override
+    public void generate(Path outDir, String genName) throws IOException {
+        int stateCount = Block.BLOCK_STATE_REGISTRY.size();
+        int[] statePacked = new int[stateCount];
+        List<BlockLayout> layouts = new ArrayList<>(BuiltInRegistries.BLOCK.size());
+        StringTable strings = new StringTable();
+
+        for (Block block : BuiltInRegistries.BLOCK) {
+            List<Property<?>> properties = List.copyOf(block.getStateDefinition().getProperties());
+
+            // the last property gets the lowest bits, same as it changes fastest in the possible states;
+            // if every property has a power of two values, packed values are equal to the state ordinals
+            int[] offsets = new int[properties.size()];
+            int[] widths = new int[properties.size()];
+            int bits = 0;
+            for (int i = properties.size() - 1; i >= 0; i--) {
+                offsets[i] = bits;
+                widths[i] = 32 - Integer.numberOfLeadingZeros(properties.get(i).getPossibleValues().size() - 1);
+                bits += widths[i];
+            }
+            if (bits > 24) {
+                throw new IllegalStateException("Properties of block " + BuiltInRegistries.BLOCK.getKey(block)
+                        + " need " + bits + " bits, packed state table would be too large");
+            }
+
+            int[] packedStates = new int[1 << bits];
+            for (BlockState state : block.getStateDefinition().getPossibleStates()) {
+                int packed = 0;
+                for (int i = 0; i < properties.size(); i++) {
+                    Property property = properties.get(i);
+                    packed |= property.getPossibleValues().indexOf(state.getValue(property)) << offsets[i];
+                }
+                int stateId = Block.BLOCK_STATE_REGISTRY.getId(state);
+                packedStates[packed] = stateId + 1; // zero marks invalid packed values
+                statePacked[stateId] = packed;
+            }
+
+            for (Property<?> property : properties) {
+                strings.index(property.getName());
+                for (Comparable value : property.getPossibleValues()) {
+                    strings.index(((Property) property).getName(value));
+                }
+            }
+            layouts.add(new BlockLayout(properties, offsets, widths, bits, packedStates));
+        }
+
+        // see FORMATS.md for a description of this format
+        GenerationUtil.writeBinary(outDir.resolve(genName + ".bin"), out -> {
+            FormatIO.writeHeader(out, BlockStateLayoutReader.MAGIC, BlockStateLayoutReader.VERSION);
+            strings.write(out);
+            FormatIO.writeVarInt(out, layouts.size());
+            for (BlockLayout layout : layouts) {
+                FormatIO.writeVarInt(out, layout.properties().size());
+                for (int i = 0; i < layout.properties().size(); i++) {
+                    Property property = layout.properties().get(i);
+                    FormatIO.writeVarInt(out, strings.index(property.getName()));
+                    FormatIO.writeVarInt(out, property.getPossibleValues().size());
+                    for (Object value : property.getPossibleValues()) {
+                        FormatIO.writeVarInt(out, strings.index(property.getName((Comparable) value)));
+                    }
+                    out.writeByte(layout.offsets()[i]);
+                    out.writeByte(layout.widths()[i]);
+                }
+                out.writeByte(layout.bits());
+                for (int state : layout.packedStates()) {
+                    FormatIO.writeVarInt(out, state);
+                }
+            }
+            FormatIO.writeVarInt(out, stateCount);
+            for (int packed : statePacked) {
+                FormatIO.writeVarInt(out, packed);
+            }
+        });
+    }
+
+    private record BlockLayout(
+            List<Property<?>> properties,
+            int[] offsets,
+            int[] widths,
+            int bits,
+            int[] packedStates // global state id + 1, zero for invalid packed values
+    ) {
+    }
+}
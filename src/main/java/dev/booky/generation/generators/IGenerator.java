@@ -1,10 +1,39 @@
 package dev.booky.generation.generators;
 // Created by booky10 in PacketEventsUtils (16:55 20.12.23)
 
+import dev.booky.generation.GenerationOptions;
+import dev.booky.generation.util.SharedArtifact;
+
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
 
 public interface IGenerator {
 
     void generate(Path outDir, String genName) throws IOException;
+
+    // called once before generating, for picking up generator-specific options
+    default void configure(GenerationOptions options) {
+    }
+
+    default String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    // shared artifacts used by this generator, it is only started once they have been created
+    default Set<SharedArtifact<?>> getArtifacts() {
+        return Set.of();
+    }
+
+    // files read by this generator, used for detecting whether it has to be re-run
+    default List<Path> getInputs(Path outDir, String genName) {
+        return List.of();
+    }
+
+    // files or directories written by this generator, inputs are never treated as outputs
+    default List<Path> getOutputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName), outDir.resolve(genName + ".json"));
+    }
+
 }
@@ -0,0 +1,113 @@
+package dev.booky.generation.generators;
+
+import com.mojang.logging.LogUtils;
+import dev.booky.generation.GenerationOptions;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.format.IdRemapReader;
+import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.IdSnapshot;
+import org.slf4j.Logger;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class IdRemapGenerator implements IGenerator {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private String previousSnapshot;
+
+    // the snapshot of the previous version is either passed explicitly or copied to input.json
+    static Path getPreviousSnapshot(Path outDir, String previousSnapshot) {
+        if (previousSnapshot != null) {
+            return outDir.resolve(previousSnapshot);
+        }
+        return outDir.resolve("IdRemapGenerator").resolve("input.json");
+    }
+
+    @Override
+    public void configure(GenerationOptions options) {
+        this.previousSnapshot = options.previousSnapshot();
+    }
+
+    @Override
+    public List<Path> getInputs(Path outDir, String genName) {
+        return List.of(getPreviousSnapshot(outDir, this.previousSnapshot));
+    }
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName).resolve("snapshot.json"),
+                outDir.resolve(genName).resolve("remap.bin"));
+    }
+
+    @Override
+    public void generate(Path outDir, String genName) throws IOException {
+        Path genDir = outDir.resolve(genName);
+        Files.createDirectories(genDir);
+
+        // always save the current ids, this is the input for the next version
+        IdSnapshot snapshot = IdSnapshot.create();
+        snapshot.save(genDir.resolve("snapshot.json"));
+
+        Path inputPath = getPreviousSnapshot(outDir, this.previousSnapshot);
+        if (!Files.exists(inputPath)) {
+            LOGGER.warn("Skipping id remapping, previous snapshot {} doesn't exist", inputPath);
+            // a remap table of an earlier run would map from the wrong version
+            Files.deleteIfExists(GenerationUtil.getOutputSink().resolve(genDir.resolve("remap.bin")));
+            return;
+        }
+        IdSnapshot prevSnapshot = IdSnapshot.load(inputPath);
+
+        GenerationUtil.writeBinary(genDir.resolve("remap.bin"), out -> {
+            FormatIO.writeHeader(out, IdRemapReader.MAGIC, IdRemapReader.VERSION);
+            FormatIO.writeString(out, prevSnapshot.version());
+            FormatIO.writeString(out, snapshot.version());
+
+            List<String> registries = new ArrayList<>(snapshot.registries().keySet());
+            registries.retainAll(prevSnapshot.registries().keySet());
+            FormatIO.writeVarInt(out, registries.size());
+            for (String registry : registries) {
+                List<String> prevNames = prevSnapshot.get(registry);
+                List<String> names = snapshot.get(registry);
+                int[] oldToNew = buildRemap(prevNames, names);
+                int[] newToOld = buildRemap(names, prevNames);
+
+                FormatIO.writeString(out, registry);
+                writeIds(out, oldToNew);
+                writeIds(out, newToOld);
+
+                LOGGER.info(" Remapped {} from {} to {}: {} removed, {} added", registry,
+                        prevSnapshot.version(), snapshot.version(),
+                        Arrays.stream(oldToNew).filter(id -> id == IdRemapReader.REMOVED).count(),
+                        Arrays.stream(newToOld).filter(id -> id == IdRemapReader.REMOVED).count());
+            }
+        });
+    }
+
+    private static int[] buildRemap(List<String> from, List<String> to) {
+        Map<String, Integer> toIds = new HashMap<>(to.size());
+        for (int i = 0; i < to.size(); i++) {
+            toIds.put(to.get(i), i);
+        }
+        int[] remap = new int[from.size()];
+        for (int i = 0; i < remap.length; i++) {
+            remap[i] = toIds.getOrDefault(from.get(i), IdRemapReader.REMOVED);
+        }
+        return remap;
+    }
+
+    private static void writeIds(DataOutput out, int[] ids) throws IOException {
+        FormatIO.writeVarInt(out, ids.length);
+        for (int id : ids) {
+            FormatIO.writeVarInt(out, id + 1); // zero is used for removed entries
+        }
+    }
+}
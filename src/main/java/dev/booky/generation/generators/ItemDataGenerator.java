@@ -1,7 +1,10 @@
 package dev.booky.generation.generators;
 // Created by booky10 in PacketEventsGenerators (23:59 18.10.2024)
 
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.mojang.logging.LogUtils;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.format.ItemComponentsReader;
 import dev.booky.generation.util.GenerationUtil;
 import io.netty.buffer.Unpooled;
 import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
@@ -12,18 +15,41 @@ import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.minecraft.resources.Identifier;
 import net.minecraft.world.item.Item;
+import org.slf4j.Logger;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ItemDataGenerator implements IGenerator {
 
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final ThreadLocal<RegistryFriendlyByteBuf> BUFFERS = ThreadLocal.withInitial(() ->
+            new RegistryFriendlyByteBuf(Unpooled.buffer(), GenerationUtil.VANILLA_REGISTRY_ACCESS));
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName + ".json"),
+                outDir.resolve(genName + ".pooled.json"),
+                outDir.resolve(genName + ".bin"),
+                outDir.resolve(genName + ".profiles.json"));
+    }
+
     @Override
     public void generate(Path outDir, String genName) throws IOException {
         // save most common values as default
@@ -49,52 +75,292 @@ public class ItemDataGenerator implements IGenerator {
                         (entry1, entry2) -> {
                             throw new IllegalArgumentException(entry1 + " " + entry2);
                         }, LinkedHashMap::new));
-        commonValues.forEach((type, counts) -> System.out.println(BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(type) + " -> " + counts));
+        if (LOGGER.isDebugEnabled()) {
+            commonValues.forEach((type, value) -> LOGGER.debug("Default value of {}: {}",
+                    BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(type), value));
+        }
 
-        JsonObject defObj = new JsonObject();
+        // encode all items in parallel, the order of the sorted items is kept
+        Map<DataComponentType<?>, byte[]> encodedDefaults = new LinkedHashMap<>();
         for (Map.Entry<DataComponentType<?>, Object> entry : commonValues.entrySet()) {
-            this.encode((DataComponentType<? super Object>) entry.getKey(), entry.getValue(), defObj);
+            encodedDefaults.put(entry.getKey(), encode((DataComponentType<? super Object>) entry.getKey(), entry.getValue()));
         }
+        List<EncodedItem> encodedItems = BuiltInRegistries.ITEM.stream()
+                .sorted(Comparator.comparing(Item::getDescriptionId))
+                .toList().parallelStream()
+                .map(item -> EncodedItem.encode(item, commonValues))
+                .toList();
+
+        // identical payloads are very common, so base64 encode every payload only once
+        Map<ByteBuffer, String> base64Cache = new HashMap<>();
+        Function<byte[], String> base64 = bytes -> base64Cache.computeIfAbsent(ByteBuffer.wrap(bytes),
+                $ -> Base64.getEncoder().encodeToString(bytes));
 
-        JsonObject obj = new JsonObject();
         Identifier defKey = Identifier.fromNamespaceAndPath("packetevents", "default");
-        obj.add(GenerationUtil.toString(defKey), defObj);
-        for (Item item : BuiltInRegistries.ITEM.stream()
-                .sorted(Comparator.comparing(Item::getDescriptionId))
-                .toList()) {
-            JsonObject dataObj = new JsonObject();
-            item.components().stream()
-                    .filter(component -> !component.value().equals(commonValues.get(component.type()))) // don't repeat defaults
-                    .sorted(Comparator.comparing(component -> BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(component.type())))
-                    .forEach(component -> this.encode(component, dataObj));
-            if (dataObj.isEmpty()) {
-                continue;
+        GenerationUtil.writeJson(outDir.resolve(genName + ".json"), writer -> {
+            writer.beginObject();
+            writer.name(GenerationUtil.toString(defKey)).beginObject();
+            for (Map.Entry<DataComponentType<?>, byte[]> entry : encodedDefaults.entrySet()) {
+                writer.name(getTypeName(entry.getKey())).value(base64.apply(entry.getValue()));
+            }
+            writer.endObject();
+
+            for (EncodedItem item : encodedItems) {
+                if (item.components().isEmpty()) {
+                    continue;
+                }
+                writer.name(GenerationUtil.toString(item.key())).beginObject();
+                for (Map.Entry<DataComponentType<?>, byte[]> component : item.components().entrySet()) {
+                    writer.name(getTypeName(component.getKey())).value(base64.apply(component.getValue()));
+                }
+                writer.endObject();
             }
-            Identifier itemKey = BuiltInRegistries.ITEM.getKey(item);
-            obj.add(GenerationUtil.toString(itemKey), dataObj);
+            writer.endObject();
+        });
+        GenerationUtil.writeJson(outDir.resolve(genName + ".pooled.json"),
+                writer -> writePooledJson(writer, encodedDefaults, encodedItems, base64));
+        GenerationUtil.writeBinary(outDir.resolve(genName + ".bin"),
+                out -> writeBinary(out, encodedDefaults, encodedItems));
+
+        ItemProfiles.Clustering clustering = ItemProfiles.cluster(encodedItems.stream()
+                .map(EncodedItem::allComponents).toList());
+        LOGGER.info("Clustered {} items into {} default component profiles, {} bytes instead of {} bytes",
+                encodedItems.size(), clustering.profiles().size(), clustering.cost(),
+                ItemProfiles.getUnclusteredCost(encodedItems.stream().map(EncodedItem::allComponents).toList()));
+        GenerationUtil.writeJson(outDir.resolve(genName + ".profiles.json"),
+                writer -> writeProfilesJson(writer, clustering, encodedItems, base64));
+    }
+
+    // all components of every item, stored as the delta to a default component profile;
+    // payloads are pooled the same way as in the pooled output
+    private static void writeProfilesJson(
+            JsonWriter writer, ItemProfiles.Clustering clustering,
+            List<EncodedItem> encodedItems, Function<byte[], String> base64
+    ) throws IOException {
+        List<String> profileNames = getProfileNames(clustering.profiles(), encodedItems);
+        List<Map<Integer, ByteBuffer>> deltas = new ArrayList<>(encodedItems.size());
+        for (int i = 0; i < encodedItems.size(); i++) {
+            deltas.add(ItemProfiles.getChanged(encodedItems.get(i).allComponents(),
+                    clustering.profiles().get(clustering.assignments()[i])));
         }
-        GenerationUtil.saveJsonElement(obj, outDir.resolve(genName + ".json"));
+
+        // payloads are added to the pool in order of appearance, to keep the output stable
+        Map<ByteBuffer, Integer> pool = new LinkedHashMap<>();
+        Stream.concat(clustering.profiles().stream(), deltas.stream())
+                .flatMap(components -> components.values().stream())
+                .forEach(payload -> pool.putIfAbsent(payload, pool.size()));
+
+        writer.beginObject();
+        writer.name("pool").beginArray();
+        for (ByteBuffer payload : pool.keySet()) {
+            writer.value(base64.apply(payload.array()));
+        }
+        writer.endArray();
+
+        writer.name("profiles").beginObject();
+        for (int i = 0; i < clustering.profiles().size(); i++) {
+            writer.name(profileNames.get(i));
+            writeProfileComponents(writer, clustering.profiles().get(i), pool);
+        }
+        writer.endObject();
+
+        writer.name("items").beginObject();
+        for (int i = 0; i < encodedItems.size(); i++) {
+            EncodedItem item = encodedItems.get(i);
+            Map<Integer, ByteBuffer> profile = clustering.profiles().get(clustering.assignments()[i]);
+            writer.name(GenerationUtil.toString(item.key())).beginObject();
+            writer.name("profile").value(profileNames.get(clustering.assignments()[i]));
+            if (!deltas.get(i).isEmpty()) {
+                writer.name("set");
+                writeProfileComponents(writer, deltas.get(i), pool);
+            }
+            List<Integer> removed = ItemProfiles.getRemoved(item.allComponents(), profile);
+            if (!removed.isEmpty()) {
+                writer.name("remove").beginArray();
+                for (int typeId : removed) {
+                    writer.value(getTypeName(BuiltInRegistries.DATA_COMPONENT_TYPE.byIdOrThrow(typeId)));
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+        writer.endObject();
     }
 
-    private <T> void encode(TypedDataComponent<T> typedComponent, JsonObject obj) {
-        this.encode(typedComponent.type(), typedComponent.value(), obj);
+    private static void writeProfileComponents(
+            JsonWriter writer, Map<Integer, ByteBuffer> components, Map<ByteBuffer, Integer> pool
+    ) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<Integer, ByteBuffer> component : components.entrySet()) {
+            writer.name(getTypeName(BuiltInRegistries.DATA_COMPONENT_TYPE.byIdOrThrow(component.getKey())))
+                    .value(pool.get(component.getValue()));
+        }
+        writer.endObject();
+    }
+
+    // profiles are named after their most distinctive component type, e.g. "tool" or "food";
+    // profiles with only common component types are named "default"
+    private static List<String> getProfileNames(List<Map<Integer, ByteBuffer>> profiles, List<EncodedItem> encodedItems) {
+        Map<Integer, Integer> typeCounts = new HashMap<>();
+        for (EncodedItem item : encodedItems) {
+            for (int typeId : item.allComponents().keySet()) {
+                typeCounts.merge(typeId, 1, Integer::sum);
+            }
+        }
+
+        List<String> names = new ArrayList<>(profiles.size());
+        for (Map<Integer, ByteBuffer> profile : profiles) {
+            String name = profile.keySet().stream()
+                    .min(Comparator.comparingInt(typeCounts::get))
+                    .filter(typeId -> typeCounts.get(typeId) * 2 < encodedItems.size())
+                    .map(typeId -> BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(
+                            BuiltInRegistries.DATA_COMPONENT_TYPE.byIdOrThrow(typeId)).getPath())
+                    .orElse(profile.isEmpty() ? "empty" : "default");
+            String uniqueName = name;
+            for (int i = 2; names.contains(uniqueName); i++) {
+                uniqueName = name + '_' + i;
+            }
+            names.add(uniqueName);
+        }
+        return names;
     }
 
-    // encode base component data using base64
-    private <T> void encode(DataComponentType<T> type, T value, JsonObject obj) {
-        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(
-                Unpooled.buffer(), GenerationUtil.VANILLA_REGISTRY_ACCESS);
-        try {
-            type.streamCodec().encode(buf, value);
-
-            byte[] bytes = new byte[buf.readableBytes()];
-            buf.readBytes(bytes);
-            String string = Base64.getEncoder().encodeToString(bytes);
-
-            Identifier typeKey = BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(type);
-            obj.addProperty(GenerationUtil.toString(typeKey), string);
-        } finally {
-            buf.release();
+    // see FORMATS.md for a description of this format
+    private static void writeBinary(
+            DataOutputStream out, Map<DataComponentType<?>, byte[]> encodedDefaults, List<EncodedItem> encodedItems
+    ) throws IOException {
+        // items are sorted by key, so readers can binary search the key table
+        List<EncodedItem> sortedItems = encodedItems.stream()
+                .sorted(Comparator.comparing(item -> GenerationUtil.toString(item.key())))
+                .toList();
+
+        // encode item records first, the key table needs their offsets
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        int[] offsets = new int[sortedItems.size()];
+        for (int i = 0; i < sortedItems.size(); i++) {
+            offsets[i] = dataOut.size();
+            writeComponentRecords(dataOut, sortedItems.get(i).components());
+        }
+
+        FormatIO.writeHeader(out, ItemComponentsReader.MAGIC, ItemComponentsReader.VERSION);
+        FormatIO.writeVarInt(out, BuiltInRegistries.DATA_COMPONENT_TYPE.size());
+        for (DataComponentType<?> type : BuiltInRegistries.DATA_COMPONENT_TYPE) {
+            FormatIO.writeString(out, getTypeName(type));
+        }
+        writeComponentRecords(out, encodedDefaults);
+
+        FormatIO.writeVarInt(out, sortedItems.size());
+        for (int i = 0; i < sortedItems.size(); i++) {
+            FormatIO.writeString(out, GenerationUtil.toString(sortedItems.get(i).key()));
+            out.writeInt(offsets[i]);
+        }
+        out.writeInt(data.size());
+        data.writeTo(out);
+    }
+
+    private static void writeComponentRecords(
+            DataOutputStream out, Map<DataComponentType<?>, byte[]> components
+    ) throws IOException {
+        List<Map.Entry<DataComponentType<?>, byte[]>> sortedComponents = components.entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> BuiltInRegistries.DATA_COMPONENT_TYPE.getId(entry.getKey())))
+                .toList();
+        FormatIO.writeVarInt(out, sortedComponents.size());
+        for (Map.Entry<DataComponentType<?>, byte[]> component : sortedComponents) {
+            FormatIO.writeVarInt(out, BuiltInRegistries.DATA_COMPONENT_TYPE.getId(component.getKey()));
+            FormatIO.writeVarInt(out, component.getValue().length);
+            out.write(component.getValue());
+        }
+    }
+
+    // same content as the main output, but every distinct payload is only stored
+    // once in a constant pool and referenced by its index everywhere else
+    private static void writePooledJson(
+            JsonWriter writer, Map<DataComponentType<?>, byte[]> encodedDefaults,
+            List<EncodedItem> encodedItems, Function<byte[], String> base64
+    ) throws IOException {
+        // payloads are added to the pool in order of appearance, to keep the output stable
+        Map<ByteBuffer, Integer> pool = new LinkedHashMap<>();
+        Stream.concat(Stream.of(encodedDefaults), encodedItems.stream().map(EncodedItem::components))
+                .flatMap(components -> components.values().stream())
+                .forEach(bytes -> pool.putIfAbsent(ByteBuffer.wrap(bytes), pool.size()));
+
+        writer.beginObject();
+        writer.name("pool").beginArray();
+        for (ByteBuffer payload : pool.keySet()) {
+            writer.value(base64.apply(payload.array()));
+        }
+        writer.endArray();
+
+        writer.name("default");
+        writePooledComponents(writer, encodedDefaults, pool);
+        writer.name("items").beginObject();
+        for (EncodedItem item : encodedItems) {
+            if (!item.components().isEmpty()) {
+                writer.name(GenerationUtil.toString(item.key()));
+                writePooledComponents(writer, item.components(), pool);
+            }
+        }
+        writer.endObject();
+        writer.endObject();
+    }
+
+    private static void writePooledComponents(
+            JsonWriter writer, Map<DataComponentType<?>, byte[]> components, Map<ByteBuffer, Integer> pool
+    ) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<DataComponentType<?>, byte[]> component : components.entrySet()) {
+            writer.name(getTypeName(component.getKey())).value(pool.get(ByteBuffer.wrap(component.getValue())));
+        }
+        writer.endObject();
+    }
+
+    private static String getTypeName(DataComponentType<?> type) {
+        return GenerationUtil.toString(BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(type));
+    }
+
+    private static <T> byte[] encode(TypedDataComponent<T> typedComponent) {
+        return encode(typedComponent.type(), typedComponent.value());
+    }
+
+    static <T> byte[] encode(DataComponentType<T> type, T value) {
+        // buffers are reused for everything encoded on the same thread,
+        // they are only replaced if the registry access has changed
+        RegistryFriendlyByteBuf buf = BUFFERS.get();
+        if (buf.registryAccess() != GenerationUtil.VANILLA_REGISTRY_ACCESS) {
+            buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), GenerationUtil.VANILLA_REGISTRY_ACCESS);
+            BUFFERS.set(buf);
+        }
+        buf.clear();
+        type.streamCodec().encode(buf, value);
+
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    // the encoded components of an item which differ from the defaults, sorted by type name,
+    // and all encoded components of the item by component type registry id
+    private record EncodedItem(
+            Identifier key,
+            Map<DataComponentType<?>, byte[]> components,
+            Map<Integer, ByteBuffer> allComponents
+    ) {
+
+        static EncodedItem encode(Item item, Map<DataComponentType<?>, Object> commonValues) {
+            Map<DataComponentType<?>, byte[]> components = new LinkedHashMap<>();
+            Map<Integer, ByteBuffer> allComponents = new TreeMap<>();
+            item.components().stream()
+                    .sorted(Comparator.comparing(component -> BuiltInRegistries.DATA_COMPONENT_TYPE.getKey(component.type())))
+                    .forEach(component -> {
+                        byte[] bytes = ItemDataGenerator.encode(component);
+                        allComponents.put(BuiltInRegistries.DATA_COMPONENT_TYPE.getId(component.type()), ByteBuffer.wrap(bytes));
+                        if (!component.value().equals(commonValues.get(component.type()))) { // don't repeat defaults
+                            components.put(component.type(), bytes);
+                        }
+                    });
+            return new EncodedItem(BuiltInRegistries.ITEM.getKey(item), components, allComponents);
         }
     }
 }
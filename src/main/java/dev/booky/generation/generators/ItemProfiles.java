@@ -0,0 +1,201 @@
+package dev.booky.generation.generators;
+
+import dev.booky.generation.format.FormatIO;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// clusters items into default component profiles; every item references the profile it
+// differs least from and only stores the delta, profiles are chosen to minimize the total
+// encoded size of all profiles and deltas
+//
+// components are passed as payloads by component type registry id, the size of an entry
+// is measured as its type id, payload length and payload
+final class ItemProfiles {
+
+    private static final int MAX_PROFILES = 16;
+    private static final int MAX_REFINE_ROUNDS = 10;
+
+    private ItemProfiles() {
+    }
+
+    public static Clustering cluster(List<Map<Integer, ByteBuffer>> items) {
+        // every distinct set of component types is a candidate, using the most common payloads
+        Map<Set<Integer>, List<Map<Integer, ByteBuffer>>> signatures = new LinkedHashMap<>();
+        for (Map<Integer, ByteBuffer> item : items) {
+            signatures.computeIfAbsent(item.keySet(), $ -> new ArrayList<>()).add(item);
+        }
+        List<Map<Integer, ByteBuffer>> candidates = signatures.values().stream()
+                .map(ItemProfiles::buildProfile)
+                .toList();
+
+        // greedily add the candidate saving the most bytes, starting with an empty profile
+        List<Map<Integer, ByteBuffer>> profiles = new ArrayList<>();
+        profiles.add(Map.of());
+        int[] costs = items.stream().mapToInt(item -> getCost(item, Map.of())).toArray();
+        while (profiles.size() < MAX_PROFILES) {
+            Map<Integer, ByteBuffer> bestCandidate = null;
+            int bestGain = 0;
+            for (Map<Integer, ByteBuffer> candidate : candidates) {
+                int gain = -getSize(candidate);
+                for (int i = 0; i < costs.length; i++) {
+                    gain += Math.max(0, costs[i] - getCost(items.get(i), candidate));
+                }
+                if (gain > bestGain) {
+                    bestCandidate = candidate;
+                    bestGain = gain;
+                }
+            }
+            if (bestCandidate == null) {
+                break; // no candidate reduces the size anymore
+            }
+            profiles.add(bestCandidate);
+            for (int i = 0; i < costs.length; i++) {
+                costs[i] = Math.min(costs[i], getCost(items.get(i), bestCandidate));
+            }
+        }
+
+        // rebuild profiles from the items assigned to them, until this doesn't reduce the size anymore
+        Clustering clustering = assign(items, profiles);
+        for (int round = 0; round < MAX_REFINE_ROUNDS; round++) {
+            List<Map<Integer, ByteBuffer>> refined = new ArrayList<>();
+            for (int i = 0; i < clustering.profiles().size(); i++) {
+                List<Map<Integer, ByteBuffer>> assigned = new ArrayList<>();
+                for (int j = 0; j < items.size(); j++) {
+                    if (clustering.assignments()[j] == i) {
+                        assigned.add(items.get(j));
+                    }
+                }
+                if (!assigned.isEmpty()) {
+                    refined.add(buildProfile(assigned));
+                }
+            }
+            Clustering refinedClustering = assign(items, refined);
+            if (refinedClustering.cost() >= clustering.cost()) {
+                break;
+            }
+            clustering = refinedClustering;
+        }
+        return clustering;
+    }
+
+    // assigns every item to its cheapest profile, unused profiles are dropped
+    private static Clustering assign(List<Map<Integer, ByteBuffer>> items, List<Map<Integer, ByteBuffer>> profiles) {
+        int[] assignments = new int[items.size()];
+        int[] costs = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            costs[i] = Integer.MAX_VALUE;
+            for (int j = 0; j < profiles.size(); j++) {
+                int cost = getCost(items.get(i), profiles.get(j));
+                if (cost < costs[i]) {
+                    costs[i] = cost;
+                    assignments[i] = j;
+                }
+            }
+        }
+
+        int[] profileIndices = new int[profiles.size()];
+        Arrays.fill(profileIndices, -1);
+        List<Map<Integer, ByteBuffer>> usedProfiles = new ArrayList<>();
+        int cost = Arrays.stream(costs).sum();
+        for (int i = 0; i < assignments.length; i++) {
+            if (profileIndices[assignments[i]] == -1) {
+                profileIndices[assignments[i]] = usedProfiles.size();
+                usedProfiles.add(profiles.get(assignments[i]));
+                cost += getSize(profiles.get(assignments[i]));
+            }
+            assignments[i] = profileIndices[assignments[i]];
+        }
+        return new Clustering(List.copyOf(usedProfiles), assignments, cost);
+    }
+
+    // a component is only part of the profile if it saves more bytes
+    // for the items using it, than it costs for items which have to remove it
+    private static Map<Integer, ByteBuffer> buildProfile(List<Map<Integer, ByteBuffer>> items) {
+        Set<Integer> typeIds = new TreeSet<>();
+        items.forEach(item -> typeIds.addAll(item.keySet()));
+
+        Map<Integer, ByteBuffer> profile = new TreeMap<>();
+        for (int typeId : typeIds) {
+            Map<ByteBuffer, Integer> payloadCounts = new LinkedHashMap<>();
+            int missing = 0;
+            for (Map<Integer, ByteBuffer> item : items) {
+                ByteBuffer payload = item.get(typeId);
+                if (payload == null) {
+                    missing++;
+                } else {
+                    payloadCounts.merge(payload, 1, Integer::sum);
+                }
+            }
+            Map.Entry<ByteBuffer, Integer> mostCommon = payloadCounts.entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).orElseThrow();
+            int entrySize = getSize(typeId, mostCommon.getKey());
+            if (mostCommon.getValue() * entrySize > missing * FormatIO.varIntSize(typeId) + entrySize) {
+                profile.put(typeId, mostCommon.getKey());
+            }
+        }
+        return profile;
+    }
+
+    public static int getUnclusteredCost(List<Map<Integer, ByteBuffer>> items) {
+        return items.stream().mapToInt(ItemProfiles::getSize).sum();
+    }
+
+    // the size of the delta between an item and a profile, this is called
+    // very often while clustering and doesn't build the delta itself
+    private static int getCost(Map<Integer, ByteBuffer> item, Map<Integer, ByteBuffer> profile) {
+        int cost = 0;
+        for (Map.Entry<Integer, ByteBuffer> component : item.entrySet()) {
+            if (!component.getValue().equals(profile.get(component.getKey()))) {
+                cost += getSize(component.getKey(), component.getValue());
+            }
+        }
+        for (int typeId : profile.keySet()) {
+            if (!item.containsKey(typeId)) {
+                cost += FormatIO.varIntSize(typeId);
+            }
+        }
+        return cost;
+    }
+
+    // components which have to be added to the profile's components
+    public static Map<Integer, ByteBuffer> getChanged(Map<Integer, ByteBuffer> item, Map<Integer, ByteBuffer> profile) {
+        Map<Integer, ByteBuffer> changed = new TreeMap<>();
+        for (Map.Entry<Integer, ByteBuffer> component : item.entrySet()) {
+            if (!component.getValue().equals(profile.get(component.getKey()))) {
+                changed.put(component.getKey(), component.getValue());
+            }
+        }
+        return changed;
+    }
+
+    // component types of the profile which have to be removed
+    public static List<Integer> getRemoved(Map<Integer, ByteBuffer> item, Map<Integer, ByteBuffer> profile) {
+        return profile.keySet().stream()
+                .filter(typeId -> !item.containsKey(typeId))
+                .toList();
+    }
+
+    private static int getSize(Map<Integer, ByteBuffer> components) {
+        int size = 0;
+        for (Map.Entry<Integer, ByteBuffer> component : components.entrySet()) {
+            size += getSize(component.getKey(), component.getValue());
+        }
+        return size;
+    }
+
+    private static int getSize(int typeId, ByteBuffer payload) {
+        return FormatIO.varIntSize(typeId) + FormatIO.varIntSize(payload.remaining()) + payload.remaining();
+    }
+
+    // profiles used by at least one item, with the profile index of every item
+    public record Clustering(List<Map<Integer, ByteBuffer>> profiles, int[] assignments, int cost) {
+    }
+}
@@ -3,7 +3,10 @@ package dev.booky.generation.generators;
 
 import com.google.gson.JsonObject;
 import com.mojang.logging.LogUtils;
+import dev.booky.generation.GenerationOptions;
 import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.IdSnapshot;
+import dev.booky.generation.util.SharedArtifact;
 import net.minecraft.Optionull;
 import net.minecraft.SharedConstants;
 import net.minecraft.core.Holder;
@@ -12,21 +15,20 @@ import net.minecraft.core.component.DataComponents;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.Identifier;
 import net.minecraft.tags.DamageTypeTags;
-import net.minecraft.world.flag.FeatureFlags;
 import net.minecraft.world.item.AxeItem;
 import net.minecraft.world.item.BlockItem;
 import net.minecraft.world.item.HoeItem;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ShovelItem;
-import net.minecraft.world.level.block.entity.FuelValues;
 import org.slf4j.Logger;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
@@ -42,8 +44,23 @@ public final class ItemTypesGenerator implements IGenerator {
 
     private static final Logger LOGGER = LogUtils.getLogger();
 
-    private static final FuelValues VANILLA_FUEL_VALUES = FuelValues.vanillaBurnTimes(
-            GenerationUtil.getVanillaRegistries(), FeatureFlags.REGISTRY.allFlags());
+    private String previousSnapshot;
+
+    @Override
+    public void configure(GenerationOptions options) {
+        this.previousSnapshot = options.previousSnapshot();
+    }
+
+    @Override
+    public Set<SharedArtifact<?>> getArtifacts() {
+        return Set.of(GenerationUtil.FUEL_VALUES);
+    }
+
+    @Override
+    public List<Path> getInputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName).resolve("input.json"),
+                IdRemapGenerator.getPreviousSnapshot(outDir, this.previousSnapshot));
+    }
 
     @Override
     public void generate(Path outDir, String genName) throws IOException {
@@ -51,15 +68,20 @@ public final class ItemTypesGenerator implements IGenerator {
         Files.createDirectories(genDir);
 
         Path inputPath = genDir.resolve("input.json");
+        Path snapshotPath = IdRemapGenerator.getPreviousSnapshot(outDir, this.previousSnapshot);
         Path outputPath = genDir.resolve("output.txt");
-        if (!Files.exists(inputPath)) {
-            LOGGER.warn("Skipping generator, input path {} doesn't exist", inputPath);
+        if (!Files.exists(inputPath) && !Files.exists(snapshotPath)) {
+            LOGGER.warn("Skipping generator, neither input path {} nor previous snapshot {} exist",
+                    inputPath, snapshotPath);
             return;
         }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
+        GenerationUtil.writeText(outputPath, writer -> {
             // read inputs
-            Set<Identifier> prevItems = GenerationUtil.loadJsonElement(inputPath, JsonObject.class).keySet().stream()
+            Collection<String> prevItemNames = Files.exists(inputPath)
+                    ? GenerationUtil.loadJsonElement(inputPath, JsonObject.class).keySet()
+                    : IdSnapshot.load(snapshotPath).get(IdSnapshot.ITEM);
+            Set<Identifier> prevItems = prevItemNames.stream()
                     .map(String::toLowerCase).map(Identifier::parse).collect(Collectors.toCollection(LinkedHashSet::new));
             Set<Identifier> items = BuiltInRegistries.ITEM.stream()
                     .map(BuiltInRegistries.ITEM::getKey)
@@ -129,7 +151,7 @@ public final class ItemTypesGenerator implements IGenerator {
 
                 writer.write(".build();");
             }
-        }
+        });
     }
 
     public enum ItemAttribute {
@@ -144,7 +166,7 @@ public final class ItemTypesGenerator implements IGenerator {
         DIAMOND_TIER("diamond"),
         GOLD_TIER("gold"),
         NETHERITE_TIER("netherite"),
-        FUEL(item -> VANILLA_FUEL_VALUES.fuelItems().contains(item)),
+        FUEL(item -> GenerationUtil.getFuelValues().fuelItems().contains(item)),
         SWORD("sword"),
         SHOVEL(item -> item instanceof ShovelItem),
         AXE(item -> item instanceof AxeItem),
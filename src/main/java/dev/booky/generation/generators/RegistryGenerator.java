@@ -1,10 +1,14 @@
 package dev.booky.generation.generators;
 // Created by booky10 in MinecraftSource (19:02 05.09.23)
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.logging.LogUtils;
+import dev.booky.generation.GenerationOptions;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.format.RegistryBundleReader;
+import dev.booky.generation.format.StringTable;
 import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.SharedArtifact;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
@@ -12,14 +16,46 @@ import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.Identifier;
 import net.minecraft.resources.ResourceKey;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public final class RegistryGenerator implements IGenerator {
 
-    static <T> JsonObject generateJsonObject(Registry<T> registry) {
-        JsonObject obj = new JsonObject();
+    private boolean bundle;
+
+    @Override
+    public void configure(GenerationOptions options) {
+        this.bundle = options.registryBundle();
+    }
+
+    @Override
+    public List<Path> getOutputs(Path outDir, String genName) {
+        List<Path> outputs = new ArrayList<>();
+        outputs.add(outDir.resolve(genName));
+        outputs.add(outDir.resolve(genName + ".json"));
+        if (this.bundle) {
+            outputs.add(outDir.resolve(genName).resolve("bundle.bin"));
+        }
+        return outputs;
+    }
+
+    @Override
+    public Set<SharedArtifact<?>> getArtifacts() {
+        return Set.of(GenerationUtil.REGISTRY_LOOKUP);
+    }
+
+    static <T> void writeJsonObject(JsonWriter writer, Registry<T> registry) throws IOException {
+        writer.beginObject();
         for (T element : registry) {
             Identifier elementKey = registry.getKey(element);
             if (elementKey == null) {
@@ -28,23 +64,22 @@ public final class RegistryGenerator implements IGenerator {
 
             String elementName = GenerationUtil.toString(elementKey);
             int elementId = registry.getId(element);
-            obj.addProperty(elementName, elementId);
+            writer.name(elementName).value(elementId);
         }
-        return obj;
+        writer.endObject();
     }
 
     private static void generateJsonObject(Path outDir, Registry<?> registry) throws IOException {
         Path outPath = outDir.resolve(GenerationUtil.getRegistryName(registry) + ".json");
-        GenerationUtil.saveJsonElement(generateJsonObject(registry), outPath);
+        GenerationUtil.writeJson(outPath, writer -> writeJsonObject(writer, registry));
     }
 
-    static <T> JsonArray generateJsonArray(HolderLookup<T> registry) {
-        JsonArray arr = new JsonArray();
-        registry.listElementIds()
-                .map(ResourceKey::identifier)
-                .map(GenerationUtil::toString)
-                .forEach(arr::add);
-        return arr;
+    static <T> void writeJsonArray(JsonWriter writer, HolderLookup<T> registry) throws IOException {
+        writer.beginArray();
+        for (ResourceKey<T> elementKey : (Iterable<ResourceKey<T>>) registry.listElementIds()::iterator) {
+            writer.value(GenerationUtil.toString(elementKey.identifier()));
+        }
+        writer.endArray();
     }
 
     private static void generateJsonArray(Path outDir, Registry<?> registry) throws IOException {
@@ -62,7 +97,7 @@ public final class RegistryGenerator implements IGenerator {
 
     private static void generateJsonArray(Path outDir, HolderLookup<?> lookup, String registryKey) throws IOException {
         Path outPath = outDir.resolve(registryKey + ".json");
-        GenerationUtil.saveJsonElement(generateJsonArray(lookup), outPath);
+        GenerationUtil.writeJson(outPath, writer -> writeJsonArray(writer, lookup));
     }
 
     @Override
@@ -93,5 +128,83 @@ public final class RegistryGenerator implements IGenerator {
                 LogUtils.getLogger().error(throwable.toString(), throwable);
             }
         }
+
+        if (this.bundle) {
+            GenerationUtil.writeBinary(outDir.resolve("bundle.bin"), RegistryGenerator::writeBundle);
+        }
+    }
+
+    // see FORMATS.md for a description of this format
+    private static void writeBundle(DataOutputStream out) throws IOException {
+        Map<Identifier, List<Identifier>> registries = new LinkedHashMap<>();
+        GenerationUtil.getVanillaRegistries().listRegistryKeys()
+                .sorted(Comparator.comparing(ResourceKey::identifier))
+                .forEach(registryKey -> registries.put(registryKey.identifier(), listEntries(registryKey)));
+
+        // encode registry sections first, the index needs their offsets
+        StringTable strings = new StringTable();
+        registries.keySet().forEach(name -> {
+            strings.index(name.getNamespace());
+            strings.index(name.getPath());
+        });
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        Map<Identifier, int[]> sections = new HashMap<>(); // offset and length of every section
+        for (Map.Entry<Identifier, List<Identifier>> registry : registries.entrySet()) {
+            int offset = dataOut.size();
+            for (Identifier entry : registry.getValue()) {
+                FormatIO.writeVarInt(dataOut, strings.index(entry.getNamespace()));
+                FormatIO.writeVarInt(dataOut, strings.index(entry.getPath()));
+            }
+            sections.put(registry.getKey(), new int[]{offset, dataOut.size() - offset});
+        }
+
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        DataOutputStream headOut = new DataOutputStream(head);
+        FormatIO.writeHeader(headOut, RegistryBundleReader.MAGIC, RegistryBundleReader.VERSION);
+        strings.write(headOut);
+        FormatIO.writeVarInt(headOut, registries.size());
+
+        // offsets in the index are absolute, so the size of the index has to be known beforehand
+        int indexSize = 0;
+        for (Map.Entry<Identifier, List<Identifier>> registry : registries.entrySet()) {
+            indexSize += FormatIO.varIntSize(strings.index(registry.getKey().getNamespace()))
+                    + FormatIO.varIntSize(strings.index(registry.getKey().getPath()))
+                    + Integer.BYTES * 2 + FormatIO.varIntSize(registry.getValue().size());
+        }
+        int dataStart = head.size() + indexSize;
+
+        head.writeTo(out);
+        for (Map.Entry<Identifier, List<Identifier>> registry : registries.entrySet()) {
+            int[] section = sections.get(registry.getKey());
+            FormatIO.writeVarInt(out, strings.index(registry.getKey().getNamespace()));
+            FormatIO.writeVarInt(out, strings.index(registry.getKey().getPath()));
+            out.writeInt(dataStart + section[0]);
+            out.writeInt(section[1]);
+            FormatIO.writeVarInt(out, registry.getValue().size());
+        }
+        data.writeTo(out);
+    }
+
+    // entries of built-in registries are listed by id, data-driven registries are loaded
+    // sorted by name, which is the order they get their network ids assigned in
+    private static List<Identifier> listEntries(ResourceKey<? extends Registry<?>> registryKey) {
+        Registry<?> builtInRegistry = BuiltInRegistries.REGISTRY.getOptional(registryKey.identifier()).orElse(null);
+        if (builtInRegistry != null) {
+            List<Identifier> entries = new ArrayList<>(builtInRegistry.size());
+            for (int id = 0; id < builtInRegistry.size(); id++) {
+                entries.add(getKey(builtInRegistry, id));
+            }
+            return entries;
+        }
+        HolderLookup.RegistryLookup<Object> lookup = GenerationUtil.getVanillaRegistries().lookupOrThrow(registryKey);
+        return lookup.listElementIds()
+                .map(ResourceKey::identifier)
+                .sorted()
+                .toList();
+    }
+
+    private static <T> Identifier getKey(Registry<T> registry, int id) {
+        return registry.getKey(registry.byIdOrThrow(id));
     }
 }
@@ -4,7 +4,9 @@ package dev.booky.generation.generators;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.mojang.logging.LogUtils;
+import dev.booky.generation.GenerationOptions;
 import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.IdSnapshot;
 import net.minecraft.SharedConstants;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.Identifier;
@@ -12,11 +14,11 @@ import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import org.slf4j.Logger;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -25,6 +27,19 @@ public class StateTypesGenerator implements IGenerator {
 
     private static final Logger LOGGER = LogUtils.getLogger();
 
+    private String previousSnapshot;
+
+    @Override
+    public void configure(GenerationOptions options) {
+        this.previousSnapshot = options.previousSnapshot();
+    }
+
+    @Override
+    public List<Path> getInputs(Path outDir, String genName) {
+        return List.of(outDir.resolve(genName).resolve("input.json"),
+                IdRemapGenerator.getPreviousSnapshot(outDir, this.previousSnapshot));
+    }
+
     @SuppressWarnings("deprecation") // solid state is deprecated
     @Override
     public void generate(Path outDir, String genName) throws IOException {
@@ -32,17 +47,22 @@ public class StateTypesGenerator implements IGenerator {
         Files.createDirectories(genDir);
 
         Path inputPath = genDir.resolve("input.json");
+        Path snapshotPath = IdRemapGenerator.getPreviousSnapshot(outDir, this.previousSnapshot);
         Path outputPath = genDir.resolve("output.txt");
-        if (!Files.exists(inputPath)) {
-            LOGGER.warn("Skipping generator, input path {} doesn't exist", inputPath);
+        if (!Files.exists(inputPath) && !Files.exists(snapshotPath)) {
+            LOGGER.warn("Skipping generator, neither input path {} nor previous snapshot {} exist",
+                    inputPath, snapshotPath);
             return;
         }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
+        GenerationUtil.writeText(outputPath, writer -> {
             // read inputs
-            Set<Identifier> prevBlocks = GenerationUtil.loadJsonElement(inputPath, JsonArray.class)
-                    .asList().stream()
-                    .map(JsonElement::getAsString).map(Identifier::parse)
+            List<String> prevBlockNames = Files.exists(inputPath)
+                    ? GenerationUtil.loadJsonElement(inputPath, JsonArray.class)
+                    .asList().stream().map(JsonElement::getAsString).toList()
+                    : IdSnapshot.load(snapshotPath).get(IdSnapshot.BLOCK);
+            Set<Identifier> prevBlocks = prevBlockNames.stream()
+                    .map(Identifier::parse)
                     .collect(Collectors.toCollection(LinkedHashSet::new));
             Set<Identifier> blocks = BuiltInRegistries.BLOCK.stream()
                     .map(BuiltInRegistries.BLOCK::getKey)
@@ -99,6 +119,6 @@ public class StateTypesGenerator implements IGenerator {
 
                 writer.write(".build();");
             }
-        }
+        });
     }
 }
@@ -5,65 +5,174 @@ import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mojang.logging.LogUtils;
+import dev.booky.generation.format.FormatIO;
+import dev.booky.generation.format.TagMembershipReader;
+import dev.booky.generation.util.GenerationMetrics;
 import dev.booky.generation.util.GenerationUtil;
+import dev.booky.generation.util.SharedArtifact;
 import net.minecraft.core.HolderLookup;
-import net.minecraft.data.DataGenerator;
-import net.minecraft.data.registries.VanillaRegistries;
-import net.minecraft.data.tags.VanillaBlockTagsProvider;
-import net.minecraft.data.tags.VanillaItemTagsProvider;
+import net.minecraft.core.Registry;
+import net.minecraft.data.CachedOutput;
+import net.minecraft.data.PackOutput;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.tags.TagsProvider;
 import net.minecraft.resources.Identifier;
 import net.minecraft.tags.BlockTags;
 import net.minecraft.tags.ItemTags;
 import net.minecraft.tags.TagKey;
-import net.minecraft.util.Util;
+import org.slf4j.Logger;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.nio.file.FileVisitResult;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class TagsGenerator implements IGenerator {
 
-    private void runDataGenerator(Path outDir) throws IOException {
-        DataGenerator generator = new DataGenerator.Uncached(outDir);
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // runs every vanilla tag provider, but captures their output in memory instead of
+    // writing it to disk; the files are keyed by their path relative to the pack root
+    private static Map<String, byte[]> runTagProviders() throws IOException {
+        Path packRoot = Path.of("");
+        PackOutput output = new PackOutput(packRoot);
+        Map<String, byte[]> files = new ConcurrentHashMap<>();
+        CachedOutput cachedOutput = (path, data, hashCode) ->
+                files.put(packRoot.relativize(path).toString().replace('\\', '/'), data);
+
+        // reuse the lookup already created for all other generators
+        CompletableFuture<HolderLookup.Provider> vanillaRegistryFuture =
+                CompletableFuture.completedFuture(GenerationUtil.getVanillaRegistries());
+        CompletableFuture.allOf(createTagProviders(output, vanillaRegistryFuture).stream()
+                .map(provider -> provider.run(cachedOutput))
+                .toArray(CompletableFuture[]::new)).join();
+        return files;
+    }
 
-        DataGenerator.PackGenerator vanilla = generator.getVanillaPack(true);
+    // new snapshots keep adding tag registries, so instead of listing every provider by hand,
+    // all concrete tag providers next to the vanilla ones are looked up and created
+    private static List<TagsProvider<?>> createTagProviders(
+            PackOutput output, CompletableFuture<HolderLookup.Provider> lookup
+    ) throws IOException {
+        String packagePath = TagsProvider.class.getPackageName().replace('.', '/');
+        List<String> classNames = new ArrayList<>();
+        visitServerJar(root -> listClassNames(root.resolve(packagePath), classNames));
+        classNames.sort(null);
+
+        List<TagsProvider<?>> providers = new ArrayList<>();
+        for (String className : classNames) {
+            // the trade rebalance providers belong to an experimental pack
+            // and would override the tags of the vanilla pack
+            if (className.contains("TradeRebalance")) {
+                continue;
+            }
+            try {
+                Class<?> clazz = Class.forName(className, false, TagsProvider.class.getClassLoader());
+                if (!TagsProvider.class.isAssignableFrom(clazz)
+                        || Modifier.isAbstract(clazz.getModifiers())) {
+                    continue;
+                }
+                Constructor<?> ctor;
+                try {
+                    ctor = clazz.getConstructor(PackOutput.class, CompletableFuture.class);
+                } catch (NoSuchMethodException ignored) {
+                    // not a standalone provider, or its constructor changed in a new snapshot
+                    LOGGER.warn("Skipping tag provider {}, it has no (PackOutput, CompletableFuture) constructor",
+                            className);
+                    continue;
+                }
+                providers.add((TagsProvider<?>) ctor.newInstance(output, lookup));
+            } catch (ReflectiveOperationException exception) {
+                throw new RuntimeException("Error while creating tag provider " + className, exception);
+            }
+        }
+        LOGGER.info("Running {} tag providers", providers.size());
+        return providers;
+    }
 
-        CompletableFuture<HolderLookup.Provider> vanillaRegistryFuture = CompletableFuture.supplyAsync(
-                VanillaRegistries::createLookup, Util.backgroundExecutor());
-        vanilla.addProvider(output ->
-                new VanillaBlockTagsProvider(output, vanillaRegistryFuture));
-        vanilla.addProvider(output ->
-                new VanillaItemTagsProvider(output, vanillaRegistryFuture));
+    private static void listClassNames(Path packageDir, List<String> classNames) throws IOException {
+        try (Stream<Path> files = Files.list(packageDir)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(".class") && fileName.indexOf('$') == -1)
+                    .map(fileName -> TagsProvider.class.getPackageName() + '.'
+                            + fileName.substring(0, fileName.length() - ".class".length()))
+                    .forEach(classNames::add);
+        }
+    }
 
-        generator.run();
+    // calls the action with the root of the server jar (or directory) minecraft's classes are loaded from
+    private static void visitServerJar(ServerJarAction action) throws IOException {
+        try {
+            Path codeSource = Path.of(TagsProvider.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isDirectory(codeSource)) {
+                action.visit(codeSource);
+            } else {
+                try (FileSystem jarFs = FileSystems.newFileSystem(codeSource)) {
+                    action.visit(jarFs.getPath("/"));
+                }
+            }
+        } catch (URISyntaxException exception) {
+            throw new IOException("Can't locate server jar", exception);
+        }
     }
 
-    private static List<Path> searchDirs(Path startDir, String dirName) throws IOException {
-        List<Path> tagDirs = new ArrayList<>();
-        Files.walkFileTree(startDir, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                if (exc == null && dirName.equals(dir.getFileName().toString())) {
-                    tagDirs.add(dir); // only add matching dirs
+    // registries the vanilla data pack of the server jar ships tags for
+    private static Set<Identifier> listVanillaTagRegistries(Map<String, Identifier> tagDirs) throws IOException {
+        Set<Identifier> registries = new HashSet<>();
+        visitServerJar(root -> {
+            Path dataDir = root.resolve("data/minecraft");
+            for (Map.Entry<String, Identifier> tagDir : tagDirs.entrySet()) {
+                Path dir = dataDir.resolve(tagDir.getKey());
+                if (!Files.isDirectory(dir)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(dir)) {
+                    if (files.anyMatch(file -> file.getFileName().toString().endsWith(".json"))) {
+                        registries.add(tagDir.getValue());
+                    }
                 }
-                return super.postVisitDirectory(dir, exc);
             }
         });
-        return Collections.unmodifiableList(tagDirs);
+        return registries;
+    }
+
+    // maps tag directories (e.g. "tags/worldgen/biome") to the registry they belong to
+    private static Map<String, Identifier> buildTagDirs() {
+        Map<String, Identifier> tagDirs = new HashMap<>();
+        Stream.concat(
+                BuiltInRegistries.REGISTRY.registryKeySet().stream(),
+                GenerationUtil.getVanillaRegistries().listRegistryKeys()
+        ).forEach(registryKey -> tagDirs.put(Registries.tagsDirPath(registryKey), registryKey.identifier()));
+        return tagDirs;
     }
 
     private static String buildTagRef(TagType tagType, Identifier tagName) {
@@ -78,127 +187,286 @@ public final class TagsGenerator implements IGenerator {
         return className + '.' + GenerationUtil.asFieldName(tagName);
     }
 
+    @Override
+    public Set<SharedArtifact<?>> getArtifacts() {
+        return Set.of(GenerationUtil.REGISTRY_LOOKUP);
+    }
+
     @Override
     public void generate(Path outDir, String genName) throws IOException {
         Path genOutDir = outDir.resolve(genName);
 
-        // run data generators to extract vanilla tags
-        Path vanillaDataDir = genOutDir.resolve("vanilla");
-        this.runDataGenerator(vanillaDataDir);
+        // run tag providers to extract vanilla tags
+        Map<String, byte[]> tagFiles = runTagProviders();
+
+        // sort tag files by registry, every namespace may contain tags for every registry;
+        // files are located at "data/<namespace>/<tag dir of registry>/<tag path>.json"
+        Map<String, Identifier> tagDirs = buildTagDirs();
+        Map<Identifier, Map<Identifier, List<JsonObject>>> registryTagFiles = new TreeMap<>();
+        for (Map.Entry<String, byte[]> tagFile : tagFiles.entrySet()) {
+            String filePath = tagFile.getKey();
+            if (!filePath.startsWith("data/") || !filePath.endsWith(".json")) {
+                continue;
+            }
+            int namespaceEnd = filePath.indexOf('/', "data/".length());
+            String namespace = filePath.substring("data/".length(), namespaceEnd);
+            String relPath = filePath.substring(namespaceEnd + 1, filePath.length() - ".json".length());
+
+            // registry paths can contain slashes, so find the longest matching tag dir
+            Identifier registryName = null;
+            int tagPathStart = -1;
+            for (int i = relPath.indexOf('/'); i != -1; i = relPath.indexOf('/', i + 1)) {
+                Identifier dirRegistry = tagDirs.get(relPath.substring(0, i));
+                if (dirRegistry != null) {
+                    registryName = dirRegistry;
+                    tagPathStart = i + 1;
+                }
+            }
+            if (registryName == null) {
+                continue; // not a tag file
+            }
 
-        // search extract vanilla data for tag directories
-        // TODO support non-"minecraft" namespaced tags
-        List<Path> tagDirs = searchDirs(vanillaDataDir, "tags");
+            Identifier tagName = Identifier.fromNamespaceAndPath(namespace, relPath.substring(tagPathStart));
+            JsonObject tagContents = JsonParser.parseString(new String(tagFile.getValue(), StandardCharsets.UTF_8))
+                    .getAsJsonObject();
+            registryTagFiles.computeIfAbsent(registryName, __ -> new HashMap<>())
+                    .computeIfAbsent(tagName, __ -> new ArrayList<>())
+                    .add(tagContents); // add contents to tag
+        }
 
-        // build info data for available tag types - PacketEvents only supports blocks/items at the moment
-        List<TagType> tagTypes = List.of(
-                new TagType(Identifier.withDefaultNamespace("block"), "BlockTags", "StateTypes", BlockTags.class),
-                new TagType(Identifier.withDefaultNamespace("item"), "ItemTags", "ItemTypes", ItemTags.class)
-        );
+        // tag providers are discovered by their constructor, so a changed constructor in a new
+        // snapshot would otherwise silently drop every tag of a registry
+        Set<Identifier> vanillaRegistries = listVanillaTagRegistries(tagDirs);
+        if (vanillaRegistries.isEmpty()) {
+            LOGGER.warn("No vanilla tags found in server jar, can't check for missing tag registries");
+        }
+        Set<Identifier> missingRegistries = new TreeSet<>(vanillaRegistries);
+        missingRegistries.removeAll(registryTagFiles.keySet());
+        if (!missingRegistries.isEmpty()) {
+            throw new IllegalStateException("Vanilla ships tags for registries " + missingRegistries
+                    + ", but no tag provider generated any; check the skipped tag providers");
+        }
 
-        // the content of this map is used for copying the tag content from
-        // another tag in code - this is a very simple structure currently,
-        // forward references are simple not checked
-        Map<TagContent, String> copyRefs = new HashMap<>();
+        // tag types don't depend on each other, so they can be processed in parallel
+        Map<Identifier, RegistryMembers> registryMembers = new ConcurrentHashMap<>();
+        GenerationMetrics metrics = GenerationMetrics.current();
+        try {
+            registryTagFiles.entrySet().parallelStream().forEach(entry -> {
+                TagType tagType = TagType.of(entry.getKey());
+                Path outPath = genOutDir.resolve(GenerationUtil.toString(tagType.registryName()) + ".txt");
+                try {
+                    GenerationMetrics.recordOn(metrics, () -> {
+                        RegistryMembers members = generateTagType(tagType, entry.getValue(), outPath);
+                        if (members != null) {
+                            registryMembers.put(tagType.registryName(), members);
+                        }
+                    });
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        GenerationUtil.writeBinary(genOutDir.resolve("membership.bin"),
+                out -> writeMembership(out, new TreeMap<>(registryMembers)));
+        LOGGER.info("Generated tags for {} registries", registryTagFiles.size());
+    }
+
+    // see FORMATS.md for a description of this format
+    private static void writeMembership(
+            DataOutputStream out, Map<Identifier, RegistryMembers> registryMembers
+    ) throws IOException {
+        // encode every registry first, the index in front needs their lengths
+        Map<Identifier, byte[]> sections = new LinkedHashMap<>();
+        for (Map.Entry<Identifier, RegistryMembers> entry : registryMembers.entrySet()) {
+            ByteArrayOutputStream section = new ByteArrayOutputStream();
+            DataOutputStream sectionOut = new DataOutputStream(section);
+            for (Map.Entry<Identifier, BitSet> tag : entry.getValue().tags().entrySet()) {
+                FormatIO.writeString(sectionOut, GenerationUtil.toString(tag.getKey()));
+                writeRuns(sectionOut, tag.getValue());
+            }
+            sections.put(entry.getKey(), section.toByteArray());
+        }
+
+        FormatIO.writeHeader(out, TagMembershipReader.MAGIC, TagMembershipReader.VERSION);
+        FormatIO.writeVarInt(out, registryMembers.size());
+        for (Map.Entry<Identifier, RegistryMembers> entry : registryMembers.entrySet()) {
+            FormatIO.writeString(out, GenerationUtil.toString(entry.getKey()));
+            FormatIO.writeVarInt(out, entry.getValue().entryCount());
+            FormatIO.writeVarInt(out, entry.getValue().tags().size());
+            FormatIO.writeVarInt(out, sections.get(entry.getKey()).length);
+        }
+        for (byte[] section : sections.values()) {
+            out.write(section);
+        }
+    }
 
-        for (TagType tagType : tagTypes) {
-            // look at order of mc fields, this is required for the tags
-            // to have consistent ordering
-            //
-            // the paths of the specific tag are populated later
-            Map<Identifier, List<Path>> tagPaths = new LinkedHashMap<>();
+    // set bits are stored as runs of consecutive ids, each run as
+    // the distance from the end of the previous run and its length
+    private static void writeRuns(DataOutputStream out, BitSet bits) throws IOException {
+        List<int[]> runs = new ArrayList<>();
+        for (int start = bits.nextSetBit(0); start != -1; start = bits.nextSetBit(start)) {
+            int end = bits.nextClearBit(start);
+            runs.add(new int[]{start, end});
+            start = end;
+        }
+        FormatIO.writeVarInt(out, runs.size());
+        int previousEnd = 0;
+        for (int[] run : runs) {
+            FormatIO.writeVarInt(out, run[0] - previousEnd);
+            FormatIO.writeVarInt(out, run[1] - run[0]);
+            previousEnd = run[1];
+        }
+    }
+
+    private static <T> int getId(Registry<T> registry, Identifier name) {
+        return registry.getId(registry.getOptional(name).orElseThrow(
+                () -> new IllegalStateException("Unknown entry " + name + " in registry " + registry.key())));
+    }
+
+    // returns the resolved members of every tag, or null if the registry doesn't have fixed ids
+    private static RegistryMembers generateTagType(
+            TagType tagType, Map<Identifier, List<JsonObject>> tagFiles, Path outPath
+    ) throws IOException {
+        // look at order of mc fields, this is required for the tags
+        // to have consistent ordering; tags without a field follow in name order
+        Map<Identifier, List<JsonObject>> tagFileContents = new LinkedHashMap<>();
+        if (tagType.mcClass() != null) {
             for (Field field : tagType.mcClass().getFields()) {
                 if (!Modifier.isPublic(field.getModifiers())
                         || !Modifier.isStatic(field.getModifiers())
-                        || !Modifier.isFinal(field.getModifiers())) {
+                        || !Modifier.isFinal(field.getModifiers())
+                        || !TagKey.class.isAssignableFrom(field.getType())) {
                     continue;
                 }
 
                 try {
                     TagKey<?> key = (TagKey<?>) field.get(null);
-                    tagPaths.put(key.location(), new ArrayList<>());
+                    tagFileContents.put(key.location(), tagFiles.getOrDefault(key.location(), List.of()));
                 } catch (IllegalAccessException exception) {
                     throw new RuntimeException(exception);
                 }
             }
-
-            // populate tag paths with data generated content
-            for (Path tagRootDir : tagDirs) {
-                Path tagDir = tagRootDir.resolve(tagType.registryName().getPath()); // TODO
-                if (!Files.isDirectory(tagDir)) {
-                    continue; // doesn't exist
-                }
-
-                // walk tag dir, nested tags are allowed in minecraft
-                try (Stream<Path> tree = Files.walk(tagDir)) {
-                    tree.filter(Files::isRegularFile).forEach(path -> {
-                        String tagPath = tagDir.relativize(path).toString();
-                        tagPath = tagPath.substring(0, tagPath.length() - ".json".length());
-                        Identifier tagName = Identifier.parse(tagPath);
-                        tagPaths.get(tagName).add(path); // add path to tag
-                    });
-                }
+        }
+        tagFiles.keySet().stream().sorted()
+                .forEach(tagName -> tagFileContents.putIfAbsent(tagName, tagFiles.get(tagName)));
+
+        // accumulate tags from every result
+        Map<Identifier, Tag> tagObjs = new LinkedHashMap<>();
+        for (Map.Entry<Identifier, List<JsonObject>> entry : tagFileContents.entrySet()) {
+            // read values from every file
+            JsonArray values = new JsonArray();
+            for (JsonObject tagContents : entry.getValue()) {
+                values.addAll(tagContents.remove("values").getAsJsonArray());
+                Preconditions.checkState(tagContents.isEmpty(), "%s != empty", tagContents);
             }
 
-            // accumulate tags from every result
-            Map<Identifier, Tag> tagObjs = new LinkedHashMap<>();
-            for (Map.Entry<Identifier, List<Path>> entry : tagPaths.entrySet()) {
-                // read values from every file
-                JsonArray values = new JsonArray();
-                for (Path path : entry.getValue()) {
-                    JsonObject tagContents = GenerationUtil.loadJsonElement(path, JsonObject.class);
-                    values.addAll(tagContents.remove("values").getAsJsonArray());
-                    Preconditions.checkState(tagContents.isEmpty(), "%s != empty", tagContents);
-                }
-
-                // build tag from read values
-                TagContent content = new TagContent();
-                for (JsonElement elem : values) {
-                    content.add(elem.getAsString());
-                }
-                Tag tag = new Tag(tagType, entry.getKey(), content);
-                tagObjs.put(tag.name, tag);
+            // build tag from read values
+            TagContent content = new TagContent();
+            for (JsonElement elem : values) {
+                content.add(elem.getAsString());
             }
+            Tag tag = new Tag(tagType, entry.getKey(), content, tagObjs.size());
+            tagObjs.put(tag.name, tag);
+        }
 
-            // build parent structure, required for correct ordering
-            for (Map.Entry<Identifier, Tag> entry : tagObjs.entrySet()) {
-                for (Identifier tag : entry.getValue().content.tags()) {
-                    entry.getValue().parents.add(tagObjs.get(tag));
+        // build parent structure, required for correct ordering
+        for (Tag tag : tagObjs.values()) {
+            for (Identifier parentName : tag.content.tags()) {
+                Tag parent = tagObjs.get(parentName);
+                if (parent == null) {
+                    throw new IllegalStateException("Tag " + tag.name + " references unknown tag "
+                            + parentName + " of registry " + tagType.registryName());
                 }
+                tag.parents.add(parent);
+                parent.children.add(tag);
             }
+            tag.pending = tag.parents.size();
+        }
 
-            // open output path for writing down tag code
-            Path outPath = genOutDir.resolve(GenerationUtil.toString(tagType.registryName()) + ".txt");
-            try (BufferedWriter writer = Files.newBufferedWriter(outPath)) {
-                // this ensures everything gets written in correct order by
-                // first looping through all tags with no parents,
-                // then removing the processed tags as a parent from everywhere
-                // until every tag has been processed
-                while (!tagObjs.isEmpty()) {
-                    List<Tag> roots = tagObjs.values().stream()
-                            .filter(tag -> tag.parents.isEmpty())
-                            .toList();
-                    if (roots.isEmpty()) {
-                        // when tags are still present and everyone still has
-                        // unprocessed parents, some sort of self-loop is present
-                        // just throw errors, this can't be recovered
-                        throw new IllegalStateException("Self-loop in remaining tags detected: " + tagObjs.keySet());
-                    }
+        // ids are only known for built-in registries, entries of
+        // data-driven registries get their ids assigned by the server
+        Registry<?> registry = BuiltInRegistries.REGISTRY.getOptional(tagType.registryName()).orElse(null);
+        Map<Identifier, BitSet> members = new LinkedHashMap<>();
 
-                    // finally, output the current set of roots
-                    for (Tag root : roots) {
-                        writer.write(root.asString(copyRefs));
-                        writer.newLine();
+        // the content of this map is used for copying the tag content from
+        // another tag in code - this is a very simple structure currently,
+        // forward references are simple not checked
+        Map<TagContent, String> copyRefs = new HashMap<>();
+
+        // open output path for writing down tag code
+        GenerationUtil.writeText(outPath, writer -> {
+            // this ensures everything gets written in correct order by first
+            // writing all tags with no parents, then all tags whose parents have
+            // all been written in a previous round, until every tag has been processed;
+            // every tag and parent reference is only visited once
+            List<Tag> roots = tagObjs.values().stream()
+                    .filter(tag -> tag.pending == 0)
+                    .toList();
+            int processed = 0;
+            while (!roots.isEmpty()) {
+                List<Tag> nextRoots = new ArrayList<>();
+                for (Tag root : roots) {
+                    writer.write(root.asString(copyRefs));
+                    writer.newLine();
+
+                    // all parents have been resolved already, so flattening is a single pass
+                    if (registry != null) {
+                        BitSet rootMembers = new BitSet(registry.size());
+                        for (Tag parent : root.parents) {
+                            rootMembers.or(members.get(parent.name));
+                        }
+                        for (Identifier type : root.content.types()) {
+                            rootMembers.set(getId(registry, type));
+                        }
+                        members.put(root.name, rootMembers);
                     }
 
-                    // remove roots from everywhere - they have been successfully processed
-                    tagObjs.values().removeAll(roots);
-                    for (Tag tag : tagObjs.values()) {
-                        tag.parents.removeAll(roots);
+                    // this tag has been processed, release children waiting for it
+                    for (Tag child : root.children) {
+                        if (--child.pending == 0) {
+                            nextRoots.add(child);
+                        }
                     }
                 }
+                processed += roots.size();
+
+                // keep order of fields inside of every round
+                nextRoots.sort(Comparator.comparingInt(tag -> tag.index));
+                roots = nextRoots;
             }
+
+            if (processed != tagObjs.size()) {
+                // when tags are still present and everyone still has
+                // unprocessed parents, some sort of loop is present
+                // just throw errors, this can't be recovered
+                throw new IllegalStateException("Loop in tags of registry " + tagType.registryName()
+                        + " detected: " + findCycle(tagObjs.values()));
+            }
+        });
+        return registry == null ? null : new RegistryMembers(registry.size(), members);
+    }
+
+    // follows unprocessed parents starting at any unprocessed tag until
+    // a tag is visited twice, every tag on the path after it is part of the loop
+    private static String findCycle(Collection<Tag> tags) {
+        Tag current = tags.stream()
+                .filter(tag -> tag.pending > 0)
+                .findFirst().orElseThrow();
+        List<Tag> path = new ArrayList<>();
+        Map<Tag, Integer> pathIndices = new HashMap<>();
+        while (!pathIndices.containsKey(current)) {
+            pathIndices.put(current, path.size());
+            path.add(current);
+            current = current.parents.stream()
+                    .filter(parent -> parent.pending > 0)
+                    .findFirst().orElseThrow();
         }
+        List<Tag> cycle = path.subList(pathIndices.get(current), path.size());
+        return Stream.concat(cycle.stream(), Stream.of(current))
+                .map(tag -> GenerationUtil.toString(tag.name))
+                .collect(Collectors.joining(" -> "));
     }
 
     // represents a type of tags supported by PacketEvents
@@ -206,8 +474,37 @@ public final class TagsGenerator implements IGenerator {
             Identifier registryName,
             String tagsClass,
             String typesClass,
-            Class<?> mcClass
+            Class<?> mcClass // null if there is no class with tag constants
     ) {
+
+        static TagType of(Identifier registryName) {
+            if (registryName.equals(Registries.BLOCK.identifier())) {
+                return new TagType(registryName, "BlockTags", "StateTypes", BlockTags.class);
+            } else if (registryName.equals(Registries.ITEM.identifier())) {
+                return new TagType(registryName, "ItemTags", "ItemTypes", ItemTags.class);
+            }
+
+            // e.g. "worldgen/biome" -> "BiomeTags" and "BiomeTypes",
+            // "entity_type" -> "EntityTypeTags" and "EntityTypes"
+            String path = registryName.getPath();
+            String baseName = Arrays.stream(path.substring(path.lastIndexOf('/') + 1).split("_"))
+                    .map(part -> Character.toUpperCase(part.charAt(0)) + part.substring(1))
+                    .collect(Collectors.joining());
+            String typesClass = baseName.endsWith("Type") ? baseName + 's' : baseName + "Types";
+
+            // vanilla has most tag keys stored as constants in classes following the same naming
+            Class<?> mcClass;
+            try {
+                mcClass = Class.forName(TagKey.class.getPackageName() + '.' + baseName + "Tags");
+            } catch (ClassNotFoundException exception) {
+                mcClass = null;
+            }
+            return new TagType(registryName, baseName + "Tags", typesClass, mcClass);
+        }
+    }
+
+    // flattened members of every tag in a registry, as bitsets over registry ids
+    private record RegistryMembers(int entryCount, Map<Identifier, BitSet> tags) {
     }
 
     private record TagContent(List<Identifier> tags, List<Identifier> types) {
@@ -235,13 +532,19 @@ public final class TagsGenerator implements IGenerator {
         private final Identifier name;
         private final TagContent content;
 
+        // position in field order, used to keep the order stable
+        private final int index;
+
         // used for sorting tags to counter forward references
         private final List<Tag> parents = new ArrayList<>();
+        private final List<Tag> children = new ArrayList<>();
+        private int pending; // amount of parents which haven't been processed yet
 
-        private Tag(TagType tagType, Identifier name, TagContent content) {
+        private Tag(TagType tagType, Identifier name, TagContent content, int index) {
             this.tagType = tagType;
             this.name = name;
             this.content = content;
+            this.index = index;
         }
 
         public String asString(Map<TagContent, String> copyRefs) {
@@ -276,4 +579,10 @@ public final class TagsGenerator implements IGenerator {
             return builder.append(';').toString();
         }
     }
+
+    @FunctionalInterface
+    private interface ServerJarAction {
+
+        void visit(Path root) throws IOException;
+    }
 }
@@ -0,0 +1,193 @@
+package dev.booky.generation.util;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.management.ThreadMXBean;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// measures a single phase of generation (bootstrap, a generator, ...); cpu time and allocations
+// are only measured for the thread running the phase, work offloaded to other threads isn't included
+public final class GenerationMetrics {
+
+    private static final ThreadMXBean THREAD_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final ThreadLocal<GenerationMetrics> CURRENT = new ThreadLocal<>();
+
+    private final String phase;
+    private final AtomicInteger filesWritten = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong rawBytesWritten = new AtomicLong();
+    private final AtomicInteger filesChanged = new AtomicInteger();
+    private final Queue<FileStats> files = new ConcurrentLinkedQueue<>();
+    private long wallTime = -1L;
+    private long cpuTime = -1L;
+    private long allocatedBytes = -1L;
+    private boolean successful;
+
+    public GenerationMetrics(String phase) {
+        this.phase = phase;
+    }
+
+    // called for every file written while a phase is being measured on the current thread,
+    // raw bytes are the amount of bytes before the output has been compressed; unchanged
+    // outputs count as written, even though their file hasn't been replaced
+    public static void recordWrite(Path path, long rawBytes, boolean changed) throws IOException {
+        GenerationMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            long encodedBytes = Files.size(path);
+            metrics.filesWritten.incrementAndGet();
+            metrics.bytesWritten.addAndGet(encodedBytes);
+            metrics.rawBytesWritten.addAndGet(rawBytes);
+            if (changed) {
+                metrics.filesChanged.incrementAndGet();
+            }
+            metrics.files.add(new FileStats(path, rawBytes, encodedBytes, changed));
+        }
+    }
+
+    public static GenerationMetrics current() {
+        return CURRENT.get();
+    }
+
+    // accounts files written by the action to the given metrics, for work offloaded to other threads
+    public static void recordOn(GenerationMetrics metrics, PhaseAction action) throws IOException {
+        GenerationMetrics prevMetrics = CURRENT.get();
+        CURRENT.set(metrics);
+        try {
+            action.run();
+        } finally {
+            CURRENT.set(prevMetrics);
+        }
+    }
+
+    public void measure(PhaseAction action) throws IOException {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+
+        GenerationMetrics prevMetrics = CURRENT.get();
+        CURRENT.set(this);
+        long startCpu = THREAD_BEAN.isCurrentThreadCpuTimeSupported()
+                ? THREAD_BEAN.getCurrentThreadCpuTime() : -1L;
+        long startAllocated = THREAD_BEAN.isThreadAllocatedMemorySupported()
+                ? THREAD_BEAN.getCurrentThreadAllocatedBytes() : -1L;
+        long start = System.nanoTime();
+        try {
+            action.run();
+            this.successful = true;
+        } finally {
+            this.wallTime = System.nanoTime() - start;
+            if (startCpu != -1L) {
+                this.cpuTime = THREAD_BEAN.getCurrentThreadCpuTime() - startCpu;
+            }
+            if (startAllocated != -1L) {
+                this.allocatedBytes = THREAD_BEAN.getCurrentThreadAllocatedBytes() - startAllocated;
+            }
+            CURRENT.set(prevMetrics);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = this.phase;
+                event.successful = this.successful;
+                event.cpuTime = this.cpuTime;
+                event.allocatedBytes = this.allocatedBytes;
+                event.filesWritten = this.filesWritten.get();
+                event.bytesWritten = this.bytesWritten.get();
+                event.rawBytesWritten = this.rawBytesWritten.get();
+                event.filesChanged = this.filesChanged.get();
+                event.commit();
+            }
+        }
+    }
+
+    // writes the fields of this phase into the currently open json object,
+    // paths of written files are relative to the output directory
+    public void writeFields(JsonWriter writer, Path outDir) throws IOException {
+        writer.name("phase").value(this.phase);
+        writer.name("successful").value(this.successful);
+        writer.name("wall_time_ns").value(this.wallTime);
+        writer.name("cpu_time_ns").value(this.cpuTime);
+        writer.name("allocated_bytes").value(this.allocatedBytes);
+        writer.name("files_written").value(this.filesWritten.get());
+        writer.name("bytes_written").value(this.bytesWritten.get());
+        writer.name("raw_bytes_written").value(this.rawBytesWritten.get());
+        writer.name("files_changed").value(this.filesChanged.get());
+        writer.name("files").beginArray();
+        for (FileStats file : this.files.stream().sorted(Comparator.comparing(FileStats::path)).toList()) {
+            writer.beginObject();
+            writer.name("path").value(outDir.toAbsolutePath().relativize(file.path().toAbsolutePath())
+                    .toString().replace('\\', '/'));
+            writer.name("raw_bytes").value(file.rawBytes());
+            writer.name("encoded_bytes").value(file.encodedBytes());
+            writer.name("changed").value(file.changed());
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    public String getPhase() {
+        return this.phase;
+    }
+
+    public long getWallTime() {
+        return this.wallTime;
+    }
+
+    public int getFilesWritten() {
+        return this.filesWritten.get();
+    }
+
+    public int getFilesChanged() {
+        return this.filesChanged.get();
+    }
+
+    private record FileStats(Path path, long rawBytes, long encodedBytes, boolean changed) {
+    }
+
+    @FunctionalInterface
+    public interface PhaseAction {
+
+        void run() throws IOException;
+    }
+
+    @Name("dev.booky.generation.Phase")
+    @Label("Generation Phase")
+    @Category("PacketEvents Generators")
+    @Description("Bootstrap, registry lookup creation or a single generator run")
+    static final class PhaseEvent extends Event {
+
+        @Label("Phase")
+        private String phase;
+        @Label("Successful")
+        private boolean successful;
+        @Label("CPU Time")
+        @Timespan(Timespan.NANOSECONDS)
+        private long cpuTime;
+        @Label("Allocated")
+        @DataAmount
+        private long allocatedBytes;
+        @Label("Files Written")
+        private int filesWritten;
+        @Label("Written")
+        @DataAmount
+        private long bytesWritten;
+        @Label("Written Uncompressed")
+        @DataAmount
+        private long rawBytesWritten;
+        @Label("Files Changed")
+        private int filesChanged;
+    }
+}
@@ -4,17 +4,24 @@ package dev.booky.generation.util;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.Registry;
 import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.data.registries.VanillaRegistries;
 import net.minecraft.resources.Identifier;
+import net.minecraft.world.flag.FeatureFlags;
+import net.minecraft.world.level.block.entity.FuelValues;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
@@ -25,14 +32,22 @@ public final class GenerationUtil {
             .disableHtmlEscaping()
             .setPrettyPrinting()
             .create();
-    public static HolderLookup.Provider VANILLA_REGISTRIES = VanillaRegistries.createLookup();
+    public static final SharedArtifact<HolderLookup.Provider> REGISTRY_LOOKUP =
+            new SharedArtifact<>("registry_lookup", VanillaRegistries::createLookup);
+    public static final SharedArtifact<FuelValues> FUEL_VALUES = new SharedArtifact<>("fuel_values",
+            () -> FuelValues.vanillaBurnTimes(getVanillaRegistries(), FeatureFlags.REGISTRY.allFlags()));
     public static RegistryAccess VANILLA_REGISTRY_ACCESS = null;
+    private static volatile OutputSink outputSink = OutputSink.DEFAULT;
 
     private GenerationUtil() {
     }
 
     public static HolderLookup.Provider getVanillaRegistries() {
-        return VANILLA_REGISTRIES;
+        return REGISTRY_LOOKUP.get();
+    }
+
+    public static FuelValues getFuelValues() {
+        return FUEL_VALUES.get();
     }
 
     public static JsonElement loadJsonElement(Path path) throws IOException {
@@ -46,10 +61,73 @@ public final class GenerationUtil {
     }
 
     public static void saveJsonElement(JsonElement element, Path path) throws IOException {
-        Files.createDirectories(path.getParent());
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            GSON.toJson(element, writer);
-        }
+        saveJsonElement(outputSink, element, path);
+    }
+
+    public static void saveJsonElement(OutputSink sink, JsonElement element, Path path) throws IOException {
+        writeText(sink, path, writer -> sink.getGson().toJson(element, writer));
+    }
+
+    // streams json directly to the file instead of building a full element tree first;
+    // formatting is exactly the same as when saving a json element
+    public static void writeJson(Path path, JsonWriteAction action) throws IOException {
+        writeJson(outputSink, path, action);
+    }
+
+    public static void writeJson(OutputSink sink, Path path, JsonWriteAction action) throws IOException {
+        writeText(sink, path, writer -> {
+            try (JsonWriter jsonWriter = sink.getGson().newJsonWriter(writer)) {
+                action.write(jsonWriter);
+            }
+        });
+    }
+
+    public static void writeBinary(Path path, BinaryWriteAction action) throws IOException {
+        outputSink.write(path, stream -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                action.write(out);
+            }
+        });
+    }
+
+    // every text output has to be written using this, so written files are accounted for;
+    // the output is only replaced if the action completes without errors
+    public static void writeText(Path path, TextWriteAction action) throws IOException {
+        writeText(outputSink, path, action);
+    }
+
+    public static void writeText(OutputSink sink, Path path, TextWriteAction action) throws IOException {
+        sink.write(path, stream -> {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+                action.write(writer);
+            }
+        });
+    }
+
+    public static OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    public static void setOutputSink(OutputSink outputSink) {
+        GenerationUtil.outputSink = outputSink;
+    }
+
+    @FunctionalInterface
+    public interface TextWriteAction {
+
+        void write(BufferedWriter writer) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface JsonWriteAction {
+
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BinaryWriteAction {
+
+        void write(DataOutputStream out) throws IOException;
     }
 
     @SuppressWarnings("unchecked") // this works
@@ -66,6 +144,7 @@ public final class GenerationUtil {
                 .toUpperCase(Locale.ROOT)
                 .replace(File.separatorChar, '_') // remove nesting
                 .replace('.', '_') // remove dots
+                .replace(':', '_') // remove namespace separator of non-vanilla namespaces
                 .replaceAll("__+", "_"); // remove adjacent underscores
     }
 
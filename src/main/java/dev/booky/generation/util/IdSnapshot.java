@@ -0,0 +1,101 @@
+package dev.booky.generation.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// names of registry entries in id order, written for every version
+// and used as input when generating data for the next version
+public record IdSnapshot(String version, Map<String, List<String>> registries) {
+
+    public static final String ITEM = "item";
+    public static final String BLOCK = "block";
+    public static final String ENTITY_TYPE = "entity_type";
+    public static final String BLOCK_STATE = "block_state";
+
+    public static IdSnapshot create() {
+        Map<String, List<String>> registries = new LinkedHashMap<>();
+        registries.put(ITEM, listNames(BuiltInRegistries.ITEM));
+        registries.put(BLOCK, listNames(BuiltInRegistries.BLOCK));
+        registries.put(ENTITY_TYPE, listNames(BuiltInRegistries.ENTITY_TYPE));
+
+        List<String> states = new ArrayList<>(Block.BLOCK_STATE_REGISTRY.size());
+        for (int stateId = 0; stateId < Block.BLOCK_STATE_REGISTRY.size(); stateId++) {
+            states.add(toString(Block.BLOCK_STATE_REGISTRY.byId(stateId)));
+        }
+        registries.put(BLOCK_STATE, Collections.unmodifiableList(states));
+
+        return new IdSnapshot(SharedConstants.getCurrentVersion().id(), Collections.unmodifiableMap(registries));
+    }
+
+    private static <T> List<String> listNames(Registry<T> registry) {
+        List<String> names = new ArrayList<>(registry.size());
+        for (int id = 0; id < registry.size(); id++) {
+            names.add(GenerationUtil.toString(registry.getKey(registry.byIdOrThrow(id))));
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    // same format as in commands, e.g. "oak_stairs[facing=north,half=top,...]"
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static String toString(BlockState state) {
+        String name = GenerationUtil.toString(BuiltInRegistries.BLOCK.getKey(state.getBlock()));
+        if (state.getValues().isEmpty()) {
+            return name;
+        }
+        return state.getValues().entrySet().stream()
+                .map(entry -> entry.getKey().getName() + '='
+                        + ((Property) entry.getKey()).getName(entry.getValue()))
+                .collect(Collectors.joining(",", name + '[', "]"));
+    }
+
+    public static IdSnapshot load(Path path) throws IOException {
+        JsonObject obj = GenerationUtil.loadJsonElement(path, JsonObject.class);
+        Map<String, List<String>> registries = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : obj.getAsJsonObject("registries").entrySet()) {
+            registries.put(entry.getKey(), entry.getValue().getAsJsonArray().asList().stream()
+                    .map(JsonElement::getAsString).toList());
+        }
+        return new IdSnapshot(obj.get("version").getAsString(), Collections.unmodifiableMap(registries));
+    }
+
+    // snapshots are read again by the next version's generation, so they always use the default output sink
+    public void save(Path path) throws IOException {
+        GenerationUtil.writeJson(OutputSink.DEFAULT, path, writer -> {
+            writer.beginObject();
+            writer.name("version").value(this.version);
+            writer.name("registries").beginObject();
+            for (Map.Entry<String, List<String>> entry : this.registries.entrySet()) {
+                writer.name(entry.getKey()).beginArray();
+                for (String name : entry.getValue()) {
+                    writer.value(name);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+            writer.endObject();
+        });
+    }
+
+    public List<String> get(String registry) {
+        List<String> names = this.registries.get(registry);
+        if (names == null) {
+            throw new IllegalArgumentException("Registry " + registry + " missing from snapshot of " + this.version);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,145 @@
+package dev.booky.generation.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// decides how outputs are encoded, selected once per run; every output
+// written through GenerationUtil ends up in a stream opened by this
+public record OutputSink(boolean prettyJson, Compression compression) {
+
+    public static final OutputSink DEFAULT = new OutputSink(true, Compression.NONE);
+
+    private static final Gson PRETTY_GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .setPrettyPrinting()
+            .create();
+    private static final Gson COMPACT_GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+
+    public Gson getGson() {
+        return this.prettyJson ? PRETTY_GSON : COMPACT_GSON;
+    }
+
+    // compressed outputs get the suffix of their compression appended
+    public Path resolve(Path path) {
+        if (this.compression == Compression.NONE) {
+            return path;
+        }
+        return path.resolveSibling(path.getFileName() + this.compression.getSuffix());
+    }
+
+    // the output is written to a temporary file next to it first, which only replaces the output
+    // if it has been written completely and its content differs; this keeps timestamps of unchanged
+    // outputs and never leaves half-written outputs behind
+    public void write(Path path, StreamWriteAction action) throws IOException {
+        Path filePath = this.resolve(path);
+        Files.createDirectories(filePath.getParent());
+        // not using createTempFile, its owner-only permissions would be kept when moving the file into place
+        Path tempPath = Files.createFile(filePath.resolveSibling(
+                filePath.getFileName() + "." + UUID.randomUUID() + ".tmp"));
+        try {
+            CountingOutputStream out = new CountingOutputStream(
+                    this.compression.wrap(new BufferedOutputStream(Files.newOutputStream(tempPath))));
+            try (out) {
+                action.write(out);
+            }
+
+            boolean changed = !Files.isRegularFile(filePath)
+                    || Files.size(filePath) != Files.size(tempPath)
+                    || !hashFile(filePath).equals(hashFile(tempPath));
+            if (changed) {
+                try {
+                    Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException exception) {
+                    Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            GenerationMetrics.recordWrite(filePath, out.count, changed);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static HashCode hashFile(Path path) throws IOException {
+        return MoreFiles.asByteSource(path).hash(Hashing.sha256());
+    }
+
+    @Override
+    public String toString() {
+        return (this.prettyJson ? "pretty" : "compact") + '/' + this.compression.name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Compression {
+
+        NONE(""),
+        GZIP(".gz"),
+        DEFLATE(".deflate"); // zlib format, as written by java's deflater
+
+        private final String suffix;
+
+        Compression(String suffix) {
+            this.suffix = suffix;
+        }
+
+        public static Compression parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+
+        private OutputStream wrap(OutputStream out) throws IOException {
+            return switch (this) {
+                case NONE -> out;
+                case GZIP -> new GZIPOutputStream(out, 8192);
+                case DEFLATE -> new DeflaterOutputStream(out, 8192);
+            };
+        }
+
+        public String getSuffix() {
+            return this.suffix;
+        }
+    }
+
+    // counts bytes before they get compressed
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+    }
+
+    @FunctionalInterface
+    public interface StreamWriteAction {
+
+        void write(OutputStream out) throws IOException;
+    }
+}
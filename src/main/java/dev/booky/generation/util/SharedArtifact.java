@@ -0,0 +1,71 @@
+package dev.booky.generation.util;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// an expensive artifact shared by generators (e.g. the registry lookup), which is only
+// created once; creation runs on its own thread, so it can overlap with other generators
+public final class SharedArtifact<T> {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private final String name;
+    private final Supplier<T> factory;
+
+    private CompletableFuture<T> future;
+    private GenerationMetrics metrics; // null if not created by this artifact
+
+    public SharedArtifact(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    // starts creating this artifact if it hasn't been started yet
+    public synchronized CompletableFuture<T> load() {
+        if (this.future != null) {
+            return this.future;
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        GenerationMetrics metrics = new GenerationMetrics(this.name);
+        this.future = future;
+        this.metrics = metrics;
+
+        Thread.ofPlatform().name("Artifact " + this.name).daemon(true).start(() -> {
+            LOGGER.info("Creating {}...", this.name);
+            try {
+                // only complete once measuring has finished, so waiting threads see the final metrics
+                AtomicReference<T> value = new AtomicReference<>();
+                metrics.measure(() -> value.set(this.factory.get()));
+                LOGGER.info("Took {}ms to create {}", metrics.getWallTime() / 1_000_000L, this.name);
+                future.complete(value.get());
+            } catch (Throwable throwable) {
+                LOGGER.error("Error while creating {}", this.name, throwable);
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    // blocks until this artifact has been created
+    public T get() {
+        return this.load().join();
+    }
+
+    // replaces this artifact with an already existing value, e.g. registries of a running server
+    public synchronized void set(T value) {
+        this.future = CompletableFuture.completedFuture(value);
+        this.metrics = null;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public synchronized GenerationMetrics getMetrics() {
+        return this.metrics;
+    }
+}
@@ -19,7 +19,7 @@ public class TellRawCommand {
         dispatcher.register(Commands.literal("tellraw")
                 .executes(ctx -> {
                     RegistryAccess registries = ctx.getSource().registryAccess();
-                    GenerationUtil.VANILLA_REGISTRIES = registries;
+                    GenerationUtil.REGISTRY_LOOKUP.set(registries);
                     GenerationUtil.VANILLA_REGISTRY_ACCESS = registries;
 
                     String version = SharedConstants.getCurrentVersion().id();